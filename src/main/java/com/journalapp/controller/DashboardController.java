@@ -1,10 +1,17 @@
 package main.java.com.journalapp.controller;
 
 import main.java.com.journalapp.model.Entry;
+import main.java.com.journalapp.model.Mood;
+import main.java.com.journalapp.model.WeatherCondition;
+import main.java.com.journalapp.util.EntryStats;
 import main.java.com.journalapp.util.Session;
 import main.java.com.journalapp.util.Time;
 import main.java.com.journalapp.util.Weather;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -25,7 +32,10 @@ import java.time.DayOfWeek;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class DashboardController {
 
@@ -41,11 +51,26 @@ public class DashboardController {
     private Map<LocalDate, String> last7DaysWeather = new HashMap<>();
 
     private List<Entry> recentEntries = new ArrayList<>();
-    private Map<LocalDate, String> moodHistory = new HashMap<>();
+    private final byte[] yearMoods = new byte[366];  // mood code per day of the selected year
     private Set<Integer> availableYears = new HashSet<>();
     private int selectedYear = LocalDate.now().getYear();
 
-    private GridPane graphGrid;
+    // calendar graph layout, in pixels
+    private static final double CELL_SIZE = 12;
+    private static final double CELL_GAP = 7;
+    private static final double CELL_PITCH = CELL_SIZE + CELL_GAP;
+    private static final double GRAPH_TOP = 15 + CELL_GAP;  // below the month labels
+    private static final DateTimeFormatter TOOLTIP_DATE_FORMAT = DateTimeFormatter.ofPattern("MMM d, yyyy");
+
+    private Canvas graphCanvas;
+    private Tooltip graphTooltip;
+    private int graphYear = selectedYear;
+    private final Color[] moodColors = createMoodColors();
+
+    // the weather card never waits longer than this on the JavaFX thread
+    private static final long WEATHER_RENDER_BUDGET_MS = 20;
+    private static final String WEATHER_PLACEHOLDER = "⏳";
+    private CompletableFuture<String> currentWeather;
     private ComboBox<Integer> yearSelector;
 
     public void setOnWriteNow(Runnable action) {
@@ -149,79 +174,43 @@ public class DashboardController {
         last7DaysActivity.clear();
         recentEntries.clear();
         last7DaysWeather.clear();
-        moodHistory.clear();
         availableYears.clear();
         availableYears.add(LocalDate.now().getYear());
 
-        if (!Session.hasActiveUser()) return;
-        ArrayList<Entry> entries = Session.listEntries();
-        if (entries == null || entries.isEmpty()) return;
+        EntryStats stats = Session.entryStats();
+        if (stats == null) return;
+        totalEntriesCount = stats.getTotal();
+        if (totalEntriesCount == 0) return;
 
-        entries.sort((e1, e2) -> e2.getDate().compareTo(e1.getDate()));
-        totalEntriesCount = entries.size();
-        recentEntries = entries.stream().limit(3).collect(Collectors.toList());
-
-        List<LocalDate> allDates = new ArrayList<>();
-        List<String> recentMoods = new ArrayList<>();
-
-        for (Entry e : entries) {
-            LocalDate d = e.getDate();
-            allDates.add(d);
-            moodHistory.put(d, e.getMood());
-            availableYears.add(d.getYear());
+        // everything below is kept up to date by EntryStats, nothing walks the history here
+        recentEntries = Session.latest(3);
+        availableYears.addAll(stats.getYears());
 
+        LocalDate today = LocalDate.now();
+        long activity = stats.getActivity(today.minusDays(6), 7);  // bit i is today - 6 + i
+        for (int i = 0; i < 7; i++) {
+            if ((activity & (1L << i)) == 0) continue;
+            LocalDate d = today.minusDays(6 - i);
             last7DaysActivity.put(d, true);
 
-            if (e.getWeather() != null && !e.getWeather().trim().isEmpty()) {
-                last7DaysWeather.put(d, e.getWeather());
-            }
-
-            if (d.isAfter(LocalDate.now().minusDays(7))) {
-                recentMoods.add(e.getMood());
+            WeatherCondition weather = stats.getWeatherOn(d);
+            if (weather != WeatherCondition.NONE) {
+                last7DaysWeather.put(d, weather.getLabel());
             }
         }
         if (yearSelector != null) updateYearSelectorItems();
-        calculateStreak(allDates);
-        analyzeMoods(recentMoods);
-    }
-
-    private void calculateStreak(List<LocalDate> dates) {
-        if (dates.isEmpty()) {
-            currentStreak = 0; return;
-        }
-        List<LocalDate> uniqueDates = dates.stream()
-                .distinct()
-                .sorted(Comparator.reverseOrder())
-                .collect(Collectors.toList());
 
-        currentStreak = 0;
-        LocalDate checkDate = LocalDate.now();
-
-        if (uniqueDates.contains(checkDate)) {
-        }
-        else if (uniqueDates.contains(checkDate.minusDays(1))) {
-            checkDate = checkDate.minusDays(1);
-        }
-        else {
-            currentStreak = 0; return;
-        }
-        // Count backwards
-        while (uniqueDates.contains(checkDate)) {
-            currentStreak++;
-            checkDate = checkDate.minusDays(1);
-        }
+        currentStreak = stats.getStreak(today);
+        analyzeMoods(stats.getWeeklyMood(today));
     }
 
-    private void analyzeMoods(List<String> moods) {
-        if (moods.isEmpty()) {
+    private void analyzeMoods(Mood mostCommon) {
+        if (mostCommon == Mood.NONE) {
             weeklyMoodText = "Neutral"; weeklyMoodEmoji = "😐"; return;
         }
-        Map<String, Integer> freq = new HashMap<>();
-        for (String m : moods) freq.put(m, freq.getOrDefault(m, 0) + 1);
-        String mostCommon = Collections.max(freq.entrySet(), Map.Entry.comparingByValue()).getKey();
 
-        weeklyMoodText = mostCommon;
-        String lower = mostCommon.toLowerCase();
+        weeklyMoodText = mostCommon.getLabel();
+        String lower = weeklyMoodText.toLowerCase();
         if(lower.contains("very positive")) weeklyMoodEmoji = "😁";
         else if(lower.contains("positive")) weeklyMoodEmoji = "😊";
         else if(lower.contains("negative")) weeklyMoodEmoji = "😔";
@@ -302,13 +291,15 @@ public class DashboardController {
         for (int i = 0; i < 7; i++) {
             LocalDate dateToCheck = startOfWeek.plusDays(i);
             String weather = "";
+            boolean waitingForWeather = false;
 
             if (dateToCheck.isAfter(today)) {
                 weather = "";
             } else if (last7DaysWeather.containsKey(dateToCheck)) {
                 weather = last7DaysWeather.get(dateToCheck);
             } else if (dateToCheck.equals(today)) {
-                weather = Weather.getCurrentWeather();
+                weather = currentWeatherWithinBudget();
+                waitingForWeather = weather == null;
             }
 
             VBox dayCol = new VBox(0);
@@ -338,7 +329,11 @@ public class DashboardController {
             dayLbl.setTextFill(Color.web("#636e72"));
 
             dayCol.getChildren().addAll(iconLbl, dayLbl);
-            if (!iconChar.isEmpty() && !iconChar.equals("❓")) {
+            if (waitingForWeather) {
+                iconLbl.setText(WEATHER_PLACEHOLDER);
+                patchWeatherWhenReady(iconLbl, dayCol, dateToCheck);
+            }
+            else if (!iconChar.isEmpty() && !iconChar.equals("❓")) {
                 Tooltip.install(dayCol, new Tooltip(dateToCheck.toString() + ": " + weather));
             }
             daysContainer.getChildren().add(dayCol);
@@ -347,6 +342,34 @@ public class DashboardController {
         return card;
     }
 
+    /**
+     * Start looking up the current weather, waiting for it at most WEATHER_RENDER_BUDGET_MS.
+     * @return the weather, or null if it is not there yet
+     */
+    private String currentWeatherWithinBudget() {
+        currentWeather = Weather.getCurrentWeatherAsync();
+        try {
+            return currentWeather.get(WEATHER_RENDER_BUDGET_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        } catch (ExecutionException e) {
+            return "";
+        }
+    }
+
+    private void patchWeatherWhenReady(Label iconLbl, VBox dayCol, LocalDate date) {
+        currentWeather.thenAccept(weather -> Platform.runLater(() -> {
+            String iconChar = (weather != null && !weather.isEmpty()) ? getWeatherIcon(weather) : "";
+            iconLbl.setText(iconChar);
+            if (!iconChar.isEmpty() && !iconChar.equals("❓")) {
+                Tooltip.install(dayCol, new Tooltip(date.toString() + ": " + weather));
+            }
+        }));
+    }
+
     private String getWeatherIcon(String weather) {
         if (weather == null || weather.trim().isEmpty()) return "❓";
         String w = weather.trim().toLowerCase();
@@ -440,16 +463,13 @@ public class DashboardController {
             labelsGrid.add(lbl, 0, i + 1);
         }
 
-        graphGrid = new GridPane();
-        graphGrid.setHgap(7);
-        graphGrid.setVgap(7);
-        graphGrid.setAlignment(Pos.TOP_LEFT);
-        graphGrid.setPadding(new Insets(0, 0, 20, 0));
-
-        graphGrid.getRowConstraints().add(headerRowConstraint);
-        for (int i = 0; i < 7; i++) graphGrid.getRowConstraints().add(dayRowConstraint);
+        // the whole year is painted on one canvas, with one tooltip following the mouse
+        graphCanvas = new Canvas(54 * CELL_PITCH, GRAPH_TOP + 7 * CELL_PITCH - CELL_GAP + 20);
+        graphTooltip = new Tooltip();
+        graphCanvas.setOnMouseMoved(e -> showDayTooltip(e.getX(), e.getY(), e.getScreenX(), e.getScreenY()));
+        graphCanvas.setOnMouseExited(e -> graphTooltip.hide());
 
-        ScrollPane gridScrollPane = new ScrollPane(graphGrid);
+        ScrollPane gridScrollPane = new ScrollPane(graphCanvas);
         gridScrollPane.setFitToHeight(true);
         gridScrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
         gridScrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
@@ -465,46 +485,54 @@ public class DashboardController {
     }
 
     private void drawCalendarGraph(int year) {
-        if (graphGrid == null) return;
-        graphGrid.getChildren().clear();
+        if (graphCanvas == null) return;
+        graphYear = year;
+
+        EntryStats stats = Session.entryStats();
+        if (stats != null) stats.fillYearMoods(year, yearMoods);
+        else Arrays.fill(yearMoods, Mood.NONE.getCode());
+
+        GraphicsContext g = graphCanvas.getGraphicsContext2D();
+        g.clearRect(0, 0, graphCanvas.getWidth(), graphCanvas.getHeight());
 
         LocalDate start = LocalDate.of(year, 1, 1);
-        LocalDate end = LocalDate.of(year, 12, 31);
-
-        int column = 0;
-        LocalDate cursor = start;
-        java.time.Month currentMonth = null;
-
-        while (!cursor.isAfter(end)) {
-            int dayOfWeek = cursor.getDayOfWeek().getValue();
-            // Java DayOfWeek: Mon=1...Sun=7.
-            // We want Sun=0, Mon=1...Sat=6 for this specific grid
-            int row = (dayOfWeek == 7) ? 0 : dayOfWeek;
-
-            if (cursor.getMonth() != currentMonth) {
-                currentMonth = cursor.getMonth();
-                if (column < 51) {
-                    Label monthLabel = new Label(currentMonth.getDisplayName(java.time.format.TextStyle.SHORT, Locale.ENGLISH));
-                    monthLabel.setFont(Font.font("Segoe UI", 10));
-                    monthLabel.setTextFill(Color.GRAY);
-                    graphGrid.add(monthLabel, column, 0);
-                    GridPane.setColumnSpan(monthLabel, 2);
-                }
+        // Java DayOfWeek: Mon=1...Sun=7.
+        // We want Sun=0, Mon=1...Sat=6 for this specific grid, a new column starts every Sunday
+        int firstRow = start.getDayOfWeek().getValue() % 7;
+
+        g.setFont(Font.font("Segoe UI", 10));
+        g.setFill(Color.GRAY);
+        g.setTextBaseline(VPos.BOTTOM);
+        for (java.time.Month month : java.time.Month.values()) {
+            int column = (start.withMonth(month.getValue()).getDayOfYear() - 1 + firstRow) / 7;
+            if (column < 51) {
+                g.fillText(month.getDisplayName(java.time.format.TextStyle.SHORT, Locale.ENGLISH), column * CELL_PITCH, GRAPH_TOP - CELL_GAP);
             }
+        }
 
-            Rectangle rect = new Rectangle(12, 12);
-            rect.setArcWidth(3); rect.setArcHeight(3);
+        for (int day = 0; day < start.lengthOfYear(); day++) {
+            int cell = day + firstRow;
+            g.setFill(moodColors[yearMoods[day]]);
+            g.fillRoundRect((cell / 7) * CELL_PITCH, GRAPH_TOP + (cell % 7) * CELL_PITCH, CELL_SIZE, CELL_SIZE, 3, 3);
+        }
+    }
 
-            String mood = moodHistory.getOrDefault(cursor, "No Data");
-            rect.setFill(getColorForMood(mood));
+    private void showDayTooltip(double x, double y, double screenX, double screenY) {
+        int column = (int) (x / CELL_PITCH);
+        int row = (int) ((y - GRAPH_TOP) / CELL_PITCH);
+        boolean onCell = y >= GRAPH_TOP && row < 7 && x % CELL_PITCH < CELL_SIZE && (y - GRAPH_TOP) % CELL_PITCH < CELL_SIZE;
 
-            Tooltip.install(rect, new Tooltip(cursor.format(DateTimeFormatter.ofPattern("MMM d, yyyy")) + "\n" + mood));
-            graphGrid.add(rect, column, row + 1);
-            if (row == 6) { // If Saturday, new column
-                column++;
-            }
-            cursor = cursor.plusDays(1);
+        LocalDate start = LocalDate.of(graphYear, 1, 1);
+        int day = column * 7 + row - start.getDayOfWeek().getValue() % 7;
+        if (!onCell || day < 0 || day >= start.lengthOfYear()) {
+            graphTooltip.hide();
+            return;
         }
+
+        Mood dayMood = Mood.fromCode(yearMoods[day]);
+        String mood = dayMood == Mood.NONE ? "No Data" : dayMood.getLabel();
+        graphTooltip.setText(start.plusDays(day).format(TOOLTIP_DATE_FORMAT) + "\n" + mood);
+        graphTooltip.show(graphCanvas, screenX + 12, screenY + 12);
     }
 
     private VBox createBaseCard() {
@@ -527,6 +555,14 @@ public class DashboardController {
         yearSelector.setItems(FXCollections.observableArrayList(sortedYears));
     }
 
+    private Color[] createMoodColors() {
+        Color[] colors = new Color[Mood.values().length];
+        for (Mood mood : Mood.values()) {
+            colors[mood.getCode()] = getColorForMood(mood == Mood.NONE ? "No Data" : mood.getLabel());
+        }
+        return colors;
+    }
+
     private Color getColorForMood(String mood) {
         if (mood == null || mood.equals("No Data")) return Color.web("#ebedf0");
         String lower = mood.toLowerCase();
@@ -8,13 +8,13 @@ import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import java.time.LocalDate;
-import java.util.concurrent.CompletableFuture;
 
 // Import your Weather utility
 import main.java.com.journalapp.util.Session;
 import main.java.com.journalapp.util.Weather;
 import main.java.com.journalapp.util.MoodAnalyzer;
 import main.java.com.journalapp.model.Entry;
+import main.java.com.journalapp.model.Mood;
 
 public class EntryEditorController {
 
@@ -63,16 +63,13 @@ public class EntryEditorController {
             condition.setText("Weather: " + lastFetchedWeather);
         }
         else {
-            CompletableFuture.runAsync(() -> {
-                String w = Weather.getCurrentWeather();
-                Platform.runLater(() -> {
-                    // Only update if we are still in "New" mode
-                    if (entryToEdit == null) {
-                        lastFetchedWeather = w;
-                        condition.setText("Weather: " + w);
-                    }
-                });
-            });
+            Weather.getCurrentWeatherAsync().thenAccept(w -> Platform.runLater(() -> {
+                // Only update if we are still in "New" mode
+                if (entryToEdit == null) {
+                    lastFetchedWeather = w;
+                    condition.setText("Weather: " + w);
+                }
+            }));
         }
 
         textArea = new TextArea();
@@ -128,58 +125,48 @@ public class EntryEditorController {
                 return;
             }
 
-            // Disable UI
-            save.setDisable(true);
-            save.setText("Analyzing...");
-
-            // Background Analysis
-            CompletableFuture.supplyAsync(() -> {
-                try {
-                    return MoodAnalyzer.analyze(content);
-                } catch (Exception ex) {
-                    System.err.println("Mood Analysis Failed: " + ex.getMessage());
-                    return "Neutral";
-                }
-            }).thenAccept(detectedMood -> {
-                Platform.runLater(() -> {
-                    String finalMood = (detectedMood == null || detectedMood.isEmpty()) ? "Neutral" : detectedMood;
-
-                    try {
-                        // --- BRANCHING LOGIC: EDIT OR CREATE? ---
-                        if (entryToEdit != null) {
-                            Session.editEntry(
-                                    entryToEdit.getId(),
-                                    entryToEdit.getDate(), // keep original date
-                                    content,
-                                    finalMood,
-                                    lastFetchedWeather // keep original weather
-                            );
-
-                            Alert alert = new Alert(Alert.AlertType.INFORMATION, "Updated successfully!");
-                            alert.showAndWait();
-
-                        } else {
-                            // OPTION B: CREATE NEW
-                            Session.createEntry(LocalDate.now(), content, finalMood, lastFetchedWeather);
-
-                            Alert alert = new Alert(Alert.AlertType.INFORMATION, "New entry saved!");
-                            alert.showAndWait();
-                            textArea.clear(); // Only clear if it was a new entry
-                        }
-                        if (onEntrySaved != null) {
-                            onEntrySaved.run(); // Triggers the action in MainController
-                        }
-
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                        new Alert(Alert.AlertType.ERROR, "Save Failed: " + ex.getMessage()).showAndWait();
-                    } finally {
-                        // Restore Button
-                        save.setText(entryToEdit != null ? "Update Entry" : "Save Entry");
-                        save.setDisable(false);
+            // Mood at hand (local analyzer or cached), the model is asked in the background so saving never waits
+            String detectedMood = MoodAnalyzer.analyzeNow(content);
+            String finalMood = detectedMood.isEmpty() ? Mood.PENDING.getLabel() : detectedMood;
+            boolean analyzeLater = !MoodAnalyzer.isFinal(content);
+
+            try {
+                // --- BRANCHING LOGIC: EDIT OR CREATE? ---
+                if (entryToEdit != null) {
+                    if (analyzeLater) {
+                        // saved marked as provisional, the model refines the mood in the background
+                        Session.editEntryAnalyzingLater(entryToEdit.getId(), entryToEdit.getDate(), content, finalMood, lastFetchedWeather);
                     }
-                });
-            });
+                    else {
+                        Session.editEntry(
+                                entryToEdit.getId(),
+                                entryToEdit.getDate(), // keep original date
+                                content,
+                                finalMood,
+                                lastFetchedWeather // keep original weather
+                        );
+                    }
+
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION, "Updated successfully!");
+                    alert.showAndWait();
+
+                } else {
+                    // OPTION B: CREATE NEW
+                    if (analyzeLater) Session.createEntryAnalyzingLater(LocalDate.now(), content, finalMood, lastFetchedWeather);
+                    else Session.createEntry(LocalDate.now(), content, finalMood, lastFetchedWeather);
+
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION, "New entry saved!");
+                    alert.showAndWait();
+                    textArea.clear(); // Only clear if it was a new entry
+                }
+                if (onEntrySaved != null) {
+                    onEntrySaved.run(); // Triggers the action in MainController
+                }
+
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                new Alert(Alert.AlertType.ERROR, "Save Failed: " + ex.getMessage()).showAndWait();
+            }
         });
 
         layout.getChildren().addAll(header, infoLine, textArea, save);
@@ -16,8 +16,8 @@ import main.java.com.journalapp.util.Session;
 import main.java.com.journalapp.model.Entry;
 
 import java.time.format.DateTimeFormatter;
-import java.util.Collections;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.function.Consumer;
 
 public class JournalsController {
@@ -51,17 +51,8 @@ public class JournalsController {
         if (Session.hasActiveUser()) {
             List<Entry> myEntries = Session.listEntries();
 
-            boolean showCreateToday = true;
-
-            if (myEntries != null && !myEntries.isEmpty()) {
-                // check all the entry whether user had write journal or not today
-                for (Entry entry : myEntries) {
-                    if (entry.getDate().isEqual(java.time.LocalDate.now())) {
-                        showCreateToday = false;
-                        break;
-                    }
-                }
-            }
+            // check whether user had write journal or not today
+            boolean showCreateToday = !Session.entryStats().hasEntryOn(java.time.LocalDate.now());
 
             if (showCreateToday) {
                 Label createTodayLabel = new Label("Create your journal today ✨");
@@ -78,9 +69,10 @@ public class JournalsController {
 
             // show all the journal card
             if (myEntries != null && !myEntries.isEmpty()) {
-                Collections.reverse(myEntries);
-                for (Entry entry : myEntries) {
-                    journalListContainer.getChildren().add(createJournalCard(entry));
+                // newest first, walk the shared list backwards instead of reversing it
+                ListIterator<Entry> it = myEntries.listIterator(myEntries.size());
+                while (it.hasPrevious()) {
+                    journalListContainer.getChildren().add(createJournalCard(it.previous()));
                 }
             }
 
@@ -12,8 +12,10 @@ import javafx.scene.layout.*;
 import javafx.stage.Stage;
 import javafx.stage.Screen;
 import javafx.geometry.Rectangle2D;
+import java.time.Duration;
 import java.util.Objects;
 
+import main.java.com.journalapp.util.AppExecutors;
 import main.java.com.journalapp.util.Session;
 
 public class MainController extends Application {
@@ -86,6 +88,12 @@ public class MainController extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        Session.logout();  // saves pending changes before the app exits
+        AppExecutors.shutdown(Duration.ofSeconds(5));
+    }
+
     // Nav
     public void showLoginView() {
         loginView.clearFields();
@@ -242,17 +250,7 @@ public class MainController extends Application {
     private void openTodayEntry() {
         java.time.LocalDate today = java.time.LocalDate.now();
 
-        main.java.com.journalapp.model.Entry existingEntry = null;
-        java.util.ArrayList<main.java.com.journalapp.model.Entry> entries = Session.listEntries();
-
-        if (entries != null) {
-            for (main.java.com.journalapp.model.Entry e : entries) {
-                if (e.getDate().equals(today)) {
-                    existingEntry = e;
-                    break; // Found it! Stop searching.
-                }
-            }
-        }
+        main.java.com.journalapp.model.Entry existingEntry = Session.entryOn(today);
         // If existingEntry is NOT null, Editor knows to "Update" instead of "Create"
         entryEditorView.setEntryToEdit(existingEntry);
 
@@ -1,30 +1,42 @@
 package main.java.com.journalapp.model;
 
+import main.java.com.journalapp.util.CsvReader;
+
 import java.time.LocalDate;
 
 /**
- *  Model representing a single entry
+ *  Model representing a single entry. Immutable, so entries can be shared freely between threads.
  */
 public class Entry {
     private final String id;  // holds unique id for each entry
-    private LocalDate date;
-    private String content;
-    private String mood;  // either "positive" or "negative"
-    private String weather;
+    private final LocalDate date;
+    private final String content;
+    private final Mood mood;  // shared enum constants instead of a String per entry
+    private final WeatherCondition weather;
+    private final boolean provisional;  // the mood is a first guess, the model is still to be asked, see MoodOutbox
 
-    public Entry(String id, LocalDate date, String content, String mood, String weather) {
+    public Entry(String id, LocalDate date, String content, Mood mood, WeatherCondition weather, boolean provisional) {
         this.id = id;
         this.date = date;
         this.content = content;
         this.mood = mood;
         this.weather = weather;
+        this.provisional = provisional;
+    }
+
+    public Entry(String id, LocalDate date, String content, Mood mood, WeatherCondition weather) {
+        this(id, date, content, mood, weather, false);
+    }
+
+    public Entry(String id, LocalDate date, String content, String mood, String weather) {
+        this(id, date, content, Mood.parse(mood), WeatherCondition.parse(weather));
     }
 
     public Entry(String id, String date, String content, String mood, String weather) {
         this(id, LocalDate.parse(date), content, mood, weather);
     }
 
-    /* getters and setters... or should I just make the variables public? */
+    /* getters only, use UserEntries.editEntry to change an entry */
     public String getId() {
         return id;
     }
@@ -33,32 +45,38 @@ public class Entry {
         return date;
     }
 
-    public void setDate(LocalDate date) {
-        this.date = date;
-    }
-
     public String getContent() {
         return content;
     }
 
-    public void setContent(String content) {
-        this.content = content;
+    public String getMood() {
+        return mood.getLabel();
     }
 
-    public String getMood() {
+    public Mood getMoodValue() {
         return mood;
     }
 
-    public void setMood(String mood) {
-        this.mood = mood;
+    public String getWeather() {
+        return weather.getLabel();
     }
 
-    public String getWeather() {
+    public WeatherCondition getWeatherValue() {
         return weather;
     }
 
-    public void setWeather(String weather) {
-        this.weather = weather;
+    /**
+     * Check whether the mood is only a first guess (or {@link Mood#PENDING}) and the model is still to be asked.
+     */
+    public boolean isMoodProvisional() {
+        return provisional;
+    }
+
+    /**
+     * Return a copy of this entry with another mood.
+     */
+    public Entry withMood(Mood mood, boolean provisional) {
+        return new Entry(id, date, content, mood, weather, provisional);
     }
 
     @Override
@@ -69,10 +87,11 @@ public class Entry {
     private String toCSVRow() {
         final String quote = "\"";
         final String comma = ",";
-        return quote + getId() + quote + comma +
+        return quote + CsvReader.escape(getId()) + quote + comma +
                quote + getDate() + quote + comma +
-               quote + getContent() + quote + comma +
-               quote + getMood() + quote + comma +
-               quote + getWeather() + quote;
+               quote + CsvReader.escape(getContent()) + quote + comma +
+               quote + mood.getCode() + quote + comma +
+               quote + weather.getCode() + quote +
+               (provisional ? comma + quote + "1" + quote : "");  // extra column, rows without it are final
     }
 }
@@ -0,0 +1,57 @@
+package main.java.com.journalapp.model;
+
+/**
+ *  Mood of an entry, as labelled by MoodAnalyzer.
+ *  <p>
+ *  Saved as its code (the ordinal), so only add new values at the end.
+ */
+public enum Mood {
+    NONE(""),
+    VERY_NEGATIVE("Very Negative"),
+    NEGATIVE("Negative"),
+    NEUTRAL("Neutral"),
+    POSITIVE("Positive"),
+    VERY_POSITIVE("Very Positive"),
+    PENDING("Pending");  // saved before the mood is known, see MoodOutbox
+
+    private static final Mood[] CODES = values();
+
+    private final String label;
+
+    Mood(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+
+    public static Mood fromCode(int code) {
+        return code >= 0 && code < CODES.length ? CODES[code] : NONE;
+    }
+
+    /**
+     * Parse a saved value, either a code or a label (older saves store the label).
+     * @return matching mood, or NONE if nothing matches
+     */
+    public static Mood parse(String value) {
+        if (value == null) return NONE;
+        value = value.trim();
+        if (value.length() == 1 && Character.isDigit(value.charAt(0))) {
+            return fromCode(value.charAt(0) - '0');
+        }
+        for (Mood mood : CODES) {
+            if (mood.label.equalsIgnoreCase(value)) return mood;
+        }
+        return NONE;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
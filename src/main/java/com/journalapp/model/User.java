@@ -1,6 +1,7 @@
 package main.java.com.journalapp.model;
 
 import main.java.com.journalapp.util.Cipher;
+import main.java.com.journalapp.util.CsvReader;
 import main.java.com.journalapp.util.UserEntries;
 
 /**
@@ -11,14 +12,14 @@ public class User {
     private final String username;
     private final String email;
     private final String password;
-    private final UserEntries entries;
+    private UserEntries entries;  // loaded on first use, see getEntries()
 
     public User(String id, String username, String email, String password, UserEntries entries) {
         this.id = id;
         this.username = username;
         this.email = email;
         this.password = password;
-        this.entries = entries != null ? entries : new UserEntries(id);
+        this.entries = entries;
     }
 
     /* Getter methods */
@@ -38,7 +39,14 @@ public class User {
         return password;
     }
 
-    public UserEntries getEntries() {
+    /**
+     * Return the entries of this user, reading them from file on first call.
+     * Users that are only looked up (e.g. to check an email) never touch their entries file.
+     */
+    public synchronized UserEntries getEntries() {
+        if (entries == null) {
+            entries = new UserEntries(id);
+        }
         return entries;
     }
 
@@ -64,9 +72,9 @@ public class User {
     private String toCSVRow() {
         final String quote = "\"";
         final String comma = ",";
-        return quote + getId() + quote + comma +
-               quote + getUsername() + quote + comma +
-               quote + getEmail() + quote + comma +
-               quote + Cipher.encode(getPassword()) + quote;
+        return quote + CsvReader.escape(getId()) + quote + comma +
+               quote + CsvReader.escape(getUsername()) + quote + comma +
+               quote + CsvReader.escape(getEmail()) + quote + comma +
+               quote + CsvReader.escape(Cipher.encode(getPassword())) + quote;
     }
 }
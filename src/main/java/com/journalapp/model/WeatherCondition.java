@@ -0,0 +1,56 @@
+package main.java.com.journalapp.model;
+
+/**
+ *  Weather of an entry, as translated by Weather.translateWeather.
+ *  <p>
+ *  Saved as its code (the ordinal), so only add new values at the end.
+ */
+public enum WeatherCondition {
+    NONE(""),
+    SUNNY("Sunny"),
+    HAZY("Hazy"),
+    RAINY("Rainy"),
+    THUNDERSTORMS("Thunderstorms"),
+    UNKNOWN("Unknown");
+
+    private static final WeatherCondition[] CODES = values();
+
+    private final String label;
+
+    WeatherCondition(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+
+    public static WeatherCondition fromCode(int code) {
+        return code >= 0 && code < CODES.length ? CODES[code] : NONE;
+    }
+
+    /**
+     * Parse a saved value, either a code or a label (older saves store the label).
+     * @return matching weather, or NONE if nothing matches
+     */
+    public static WeatherCondition parse(String value) {
+        if (value == null) return NONE;
+        value = value.trim();
+        if (value.length() == 1 && Character.isDigit(value.charAt(0))) {
+            return fromCode(value.charAt(0) - '0');
+        }
+        for (WeatherCondition weather : CODES) {
+            if (weather.label.equalsIgnoreCase(value)) return weather;
+        }
+        return NONE;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
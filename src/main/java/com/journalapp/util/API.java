@@ -1,13 +1,82 @@
 package main.java.com.journalapp.util;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Sends HTTP requests through one shared client.
+ * <p>
+ * The client keeps connections alive between requests and uses HTTP/2 where the server supports it.
+ * Requests run on the io threads of {@link AppExecutors}, so the async methods never tie up the caller or the common pool.
+ * Every request follows the {@link CallPolicy} of its host: deadline, retries, circuit breaker and rate limit.
+ * Response bodies can be read as they arrive with a {@link BodyReader}, e.g. a {@link JsonReader}.
+ */
 public class API {
+    /**
+     * Reads what it needs from a response body as it arrives. The body is closed afterwards,
+     * so a reader can stop early and the rest is never downloaded.
+     */
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    /**
+     * Thrown (wrapped in the future) when the server answers with an error status.
+     */
+    public static class HttpStatusException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        public HttpStatusException(String method, int statusCode) {
+            super(method + " failed. HTTP error code: " + statusCode);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(AppExecutors.io())
+            .build();
+
+    // by host, hosts without a policy of their own get the default one
+    private static final ConcurrentHashMap<String, CallPolicy> policies = new ConcurrentHashMap<>();
+    private static final CallPolicy defaultPolicy = new CallPolicy("default", Duration.ofSeconds(60), 1);
+
+    private static final BodyReader<String> WHOLE_BODY = body -> new String(body.readAllBytes(), StandardCharsets.UTF_8);
+
+    /**
+     * Set how requests to the given host behave when it is slow or down.
+     * @param host e.g. "api.data.gov.my"
+     */
+    public static void setPolicy(String host, CallPolicy policy) {
+        policies.put(host, policy);
+    }
+
+    public static CallPolicy getPolicy(String host) {
+        return policies.getOrDefault(host, defaultPolicy);
+    }
 
     /**
      * Sends a GET request to the specified API URL.
@@ -17,28 +86,33 @@ public class API {
      * @throws Exception if the request fails
      */
     public String get(String apiURL) throws Exception {
-        URL url = new URL(apiURL);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-        // Set HTTP method and headers
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("Accept", "application/json");
-
-        // Check for successful response
-        if (conn.getResponseCode() != 200) {
-            throw new RuntimeException("GET failed. HTTP error code: " + conn.getResponseCode());
-        }
+        return await(getAsync(apiURL));
+    }
 
-        // Read response
-        BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        StringBuilder sb = new StringBuilder();
-        String output;
-        while ((output = br.readLine()) != null) {
-            sb.append(output);
-        }
+    /**
+     * Sends a GET request to the specified API URL without waiting for the response.
+     *
+     * @param apiURL the URL to send the GET request to
+     * @return future completed with the response body, or exceptionally if the request fails
+     */
+    public CompletableFuture<String> getAsync(String apiURL) {
+        return getAsync(apiURL, WHOLE_BODY);
+    }
 
-        conn.disconnect();
-        return sb.toString();
+    /**
+     * Sends a GET request to the specified API URL, reading the response with the given reader.
+     *
+     * @param apiURL the URL to send the GET request to
+     * @param reader reads the response body as it arrives
+     * @return future completed with what the reader returned, or exceptionally if the request fails
+     */
+    public <T> CompletableFuture<T> getAsync(String apiURL, BodyReader<T> reader) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiURL))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        return send(request, "GET", reader);
     }
 
     /**
@@ -51,40 +125,68 @@ public class API {
      * @throws Exception if the request fails
      */
     public String post(String apiURL, String bearerToken, String jsonBody) throws Exception {
-        URL url = new URL(apiURL);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-        // Set HTTP method and headers
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("Accept", "application/json");
-        conn.setRequestProperty("Content-Type", "application/json");
-        conn.setRequestProperty("Authorization", "Bearer " + bearerToken);
-
-        // Enable sending body
-        conn.setDoOutput(true);
-
-        // Write request body
-        try (OutputStream os = conn.getOutputStream()) {
-            byte[] input = jsonBody.getBytes("utf-8");
-            os.write(input, 0, input.length);
-        }
+        return await(postAsync(apiURL, bearerToken, jsonBody));
+    }
 
-        // Check for success
-        int responseCode = conn.getResponseCode();
-        if (responseCode != 200 && responseCode != 201) {
-            throw new RuntimeException("POST failed. HTTP error code: " + responseCode);
-        }
+    /**
+     * Sends a POST request with JSON body and Bearer token authentication without waiting for the response.
+     *
+     * @param apiURL      the URL to send the POST request to
+     * @param bearerToken the bearer token for Authorization header
+     * @param jsonBody    the JSON payload as a string
+     * @return future completed with the response body, or exceptionally if the request fails
+     */
+    public CompletableFuture<String> postAsync(String apiURL, String bearerToken, String jsonBody) {
+        return postAsync(apiURL, bearerToken, jsonBody, WHOLE_BODY);
+    }
 
-        // Read response
-        BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), "utf-8"));
-        StringBuilder sb = new StringBuilder();
-        String responseLine;
-        while ((responseLine = br.readLine()) != null) {
-            sb.append(responseLine.trim());
-        }
+    /**
+     * Sends a POST request with JSON body and Bearer token authentication, reading the response with the given reader.
+     *
+     * @param apiURL      the URL to send the POST request to
+     * @param bearerToken the bearer token for Authorization header
+     * @param jsonBody    the JSON payload as a string
+     * @param reader      reads the response body as it arrives
+     * @return future completed with what the reader returned, or exceptionally if the request fails
+     */
+    public <T> CompletableFuture<T> postAsync(String apiURL, String bearerToken, String jsonBody, BodyReader<T> reader) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiURL))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + bearerToken)
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8))
+                .build();
+        return send(request, "POST", reader);
+    }
+
+    private static <T> CompletableFuture<T> send(HttpRequest request, String method, BodyReader<T> reader) {
+        return getPolicy(request.uri().getHost()).call(() ->
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                        .thenApply(response -> {
+                            // runs once the headers are in, the body is read on this io thread as it arrives
+                            try (InputStream body = response.body()) {
+                                int code = response.statusCode();
+                                if (code != 200 && code != 201) {
+                                    throw new HttpStatusException(method, code);
+                                }
+                                return reader.read(body);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+    }
 
-        conn.disconnect();
-        return sb.toString();
+    /**
+     * Wait for a response, throwing what the request failed with.
+     */
+    private static String await(CompletableFuture<String> response) throws Exception {
+        try {
+            return response.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
     }
 
     // Example usage
@@ -0,0 +1,176 @@
+package main.java.com.journalapp.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of mood analysis results, so analyzing the same text again needs no request.
+ * <p>
+ * Results are keyed by a SHA-256 hash of the model and the normalized text, which also keeps journal text
+ * out of the cache file. The least recently used results are dropped once the cache is full.
+ */
+public class AnalysisCache {
+    private static final String CACHE_FILE = "./data/analysis-cache.csv";
+    private static final int DEFAULT_MAX_ENTRIES = 2000;
+
+    private final String path;
+    private final int maxEntries;
+    private final LinkedHashMap<String, String> results;  // guarded by this, least recently used first
+    private final Object fileLock = new Object();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public AnalysisCache() {
+        this(CACHE_FILE, DEFAULT_MAX_ENTRIES);
+    }
+
+    public AnalysisCache(String path, int maxEntries) {
+        this.path = path;
+        this.maxEntries = maxEntries;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > AnalysisCache.this.maxEntries;
+            }
+        };
+        load();
+    }
+
+    /**
+     * Return the cached result for a text, or null if it was not analyzed yet.
+     */
+    public String get(String model, String text) {
+        String result;
+        synchronized (this) {
+            result = results.get(key(model, text));
+        }
+        if (result == null) misses.incrementAndGet();
+        else hits.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Same as {@link #get(String, String)}, but not counted in the hit rate. Use it to look up a text again
+     * whose lookup was counted already; the result still counts as recently used.
+     */
+    public synchronized String peek(String model, String text) {
+        return results.get(key(model, text));
+    }
+
+    /**
+     * Remember the result for a text. Empty results (failed requests) are not cached.
+     */
+    public void put(String model, String text, String result) {
+        if (result == null || result.isEmpty()) return;
+        synchronized (this) {
+            results.put(key(model, text), result);
+        }
+        save();
+    }
+
+    /**
+     * Remember the results for many texts, e.g. a batch, writing the file once.
+     * @param results result per text; empty results are not cached
+     */
+    public void putAll(String model, Map<String, String> results) {
+        boolean changed = false;
+        synchronized (this) {
+            for (Map.Entry<String, String> result : results.entrySet()) {
+                if (result.getValue() == null || result.getValue().isEmpty()) continue;
+                this.results.put(key(model, result.getKey()), result.getValue());
+                changed = true;
+            }
+        }
+        if (changed) save();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return share of lookups answered from the cache, between 0 and 1; peeks are not counted
+     */
+    public double getHitRate() {
+        long hits = this.hits.get(), total = hits + misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Collapse whitespace, so reformatting an entry does not count as a change.
+     */
+    static String normalize(String text) {
+        return text.strip().replaceAll("\\s+", " ");
+    }
+
+    private static String key(String model, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(normalize(text).getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);  // every JVM has SHA-256
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(Paths.get(path))) return;
+        try (CsvReader reader = new CsvReader(path)) {
+            reader.readRow();  // skip header
+            String[] row;
+            while ((row = reader.readRow()) != null) {
+                if (row.length >= 2) results.put(row[0], row[1]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Rewrite the cache file, least recently used first so the order survives a restart.
+     */
+    private void save() {
+        Path tmp = Paths.get(path + ".tmp");
+        synchronized (fileLock) {  // copy under the same lock, so an older copy never overwrites a newer one
+            StringBuilder csv = new StringBuilder("key,result\n");
+            synchronized (this) {
+                for (Map.Entry<String, String> entry : results.entrySet()) {
+                    csv.append(entry.getKey()).append(",\"").append(CsvReader.escape(entry.getValue())).append("\"\n");
+                }
+            }
+
+            try {
+                tmp.toAbsolutePath().getParent().toFile().mkdirs();
+                try (Writer writer = new BufferedWriter(new FileWriter(tmp.toFile()))) {
+                    writer.write(csv.toString());
+                }
+                Files.move(tmp, Paths.get(path), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package main.java.com.journalapp.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The threads background work runs on, shared by the whole app, so nothing blocks the common ForkJoinPool.
+ * <ul>
+ *     <li>{@link #io()} for work that waits on the network, one virtual thread per task where the JVM has them</li>
+ *     <li>{@link #cpu()} for computing, as many threads as cores and a bounded queue</li>
+ *     <li>{@link #persistence(String)} for writing a user's files, one thread per user so writes stay in order</li>
+ *     <li>{@link #scheduler()} for timers, its tasks must only start other work</li>
+ * </ul>
+ * Call {@link #shutdown(Duration)} when the app exits.
+ */
+public final class AppExecutors {
+    private AppExecutors() {}
+
+    /**
+     * What an executor is doing right now, see {@link #metrics()}.
+     */
+    public static class Metrics {
+        private final String name;
+        private final int queued;
+        private final int active;
+        private final long completed;
+
+        Metrics(String name, int queued, int active, long completed) {
+            this.name = name;
+            this.queued = queued;
+            this.active = active;
+            this.completed = completed;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return tasks waiting for a thread
+         */
+        public int getQueued() {
+            return queued;
+        }
+
+        /**
+         * @return tasks running
+         */
+        public int getActive() {
+            return active;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + queued + " queued, " + active + " active, " + completed + " completed";
+        }
+    }
+
+    private static final int CPU_QUEUE_CAPACITY = 1024;
+    // idle threads of a user's persistence executor exit after this, e.g. after logout
+    private static final long PERSISTENCE_KEEP_ALIVE_SECONDS = 30;
+
+    private static final ExecutorService io = createIo();
+    private static final ThreadPoolExecutor cpu = createCpu();
+    private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, daemon("scheduler"));
+    private static final ConcurrentHashMap<String, ScheduledThreadPoolExecutor> persistence = new ConcurrentHashMap<>();
+
+    /**
+     * @return executor for tasks that block on the network, e.g. HTTP requests and reading their responses
+     */
+    public static ExecutorService io() {
+        return io;
+    }
+
+    /**
+     * @return executor for computing, e.g. analyzing many entries locally. When its queue is full, new tasks
+     * are rejected with a RejectedExecutionException rather than run by the submitting thread, which may be
+     * the JavaFX thread; callers turn that into a failed future
+     */
+    public static ExecutorService cpu() {
+        return cpu;
+    }
+
+    /**
+     * @return executor for delayed tasks, e.g. retries; run the actual work elsewhere
+     */
+    public static ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @param owner e.g. the user id; executors are created on first use and shared by everything of the owner
+     * @return single-threaded executor that writes the owner's files in the order they were submitted
+     */
+    public static ScheduledExecutorService persistence(String owner) {
+        return persistence.computeIfAbsent(owner, key -> {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, daemon("persistence-" + key));
+            executor.setKeepAliveTime(PERSISTENCE_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        });
+    }
+
+    /**
+     * @return one line of metrics per executor, the io executor first
+     */
+    public static List<Metrics> metrics() {
+        ArrayList<Metrics> metrics = new ArrayList<>();
+        if (io instanceof MeteredExecutor) metrics.add(((MeteredExecutor) io).metrics("io"));
+        else metrics.add(metrics("io", (ThreadPoolExecutor) io));
+        metrics.add(metrics("cpu", cpu));
+        metrics.add(metrics("scheduler", scheduler));
+        persistence.forEach((owner, executor) -> metrics.add(metrics("persistence-" + owner, executor)));
+        return metrics;
+    }
+
+    private static Metrics metrics(String name, ThreadPoolExecutor executor) {
+        return new Metrics(name, executor.getQueue().size(), executor.getActiveCount(), executor.getCompletedTaskCount());
+    }
+
+    /**
+     * Stop taking tasks, let the running ones finish within the timeout, then interrupt what is left.
+     * Save pending changes before calling this, see {@link Session#logout()}.
+     */
+    public static void shutdown(Duration timeout) {
+        ArrayList<ExecutorService> all = new ArrayList<>(persistence.values());
+        all.add(cpu);
+        all.add(io);
+        all.add(scheduler);
+        for (ExecutorService executor : all) executor.shutdown();
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            for (ExecutorService executor : all) {
+                if (!executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    executor.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            for (ExecutorService executor : all) executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Use a virtual thread per task when the JVM has them (Java 21 and up), otherwise a cached pool of daemon threads.
+     * Looked up by reflection so the app still builds and runs on older JVMs.
+     */
+    private static ExecutorService createIo() {
+        try {
+            Object executor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return new MeteredExecutor((ExecutorService) executor);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemon("io"));
+        }
+    }
+
+    private static ThreadPoolExecutor createCpu() {
+        int threads = Math.max(1, Config.getInt(Config.CPU_THREADS, Runtime.getRuntime().availableProcessors()));
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(CPU_QUEUE_CAPACITY), daemon("cpu"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Counts the tasks of an executor that does not report them itself.
+     */
+    private static class MeteredExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final AtomicInteger submitted = new AtomicInteger();
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+
+        MeteredExecutor(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            submitted.incrementAndGet();
+            try {
+                delegate.execute(() -> {
+                    started.incrementAndGet();
+                    try {
+                        task.run();
+                    } finally {
+                        completed.incrementAndGet();
+                        started.decrementAndGet();
+                        submitted.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                submitted.decrementAndGet();
+                throw e;
+            }
+        }
+
+        Metrics metrics(String name) {
+            int active = started.get();
+            return new Metrics(name, Math.max(0, submitted.get() - active), active, completed.get());
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+    /**
+     * Demonstrate the use of this class.
+     */
+    public static void main(String[] args) throws Exception {
+        CompletableFuture<Void> wait = CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, io());
+        metrics().forEach(System.out::println);
+        wait.get();
+        shutdown(Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,237 @@
+package main.java.com.journalapp.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * How calls to one endpoint behave when it is slow or down, see {@link API#setPolicy(String, CallPolicy)}.
+ * <p>
+ * A call gets a deadline for all its attempts together. Failed attempts (network errors, HTTP 429 and 5xx)
+ * are retried a few times after a random delay that doubles each time. After several failed calls in a row,
+ * the circuit opens and calls fail at once for a while, then a single trial call decides whether to close it.
+ * An optional token bucket spaces out calls to stay within a quota.
+ */
+public class CallPolicy {
+    /**
+     * Thrown (wrapped in the future) while the circuit is open.
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public CircuitOpenException(String endpoint) {
+            super("Circuit open for " + endpoint + ", not calling it for now");
+        }
+    }
+
+    public enum CircuitState {
+        CLOSED,     // calls go through
+        OPEN,       // calls fail at once
+        HALF_OPEN   // one trial call goes through
+    }
+
+    private static final Duration BASE_BACKOFF = Duration.ofMillis(250);
+
+    // waits between attempts, the waiting tasks only start the next request
+    private static final ScheduledExecutorService scheduler = AppExecutors.scheduler();
+
+    private final String name;
+    private final Duration deadline;
+    private final int maxRetries;
+
+    // circuit breaker, guarded by this
+    private int failureThreshold = 5;
+    private Duration openDuration = Duration.ofSeconds(30);
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean trialRunning = false;
+
+    // token bucket, guarded by this; off unless setRateLimit is called
+    private double permitsPerSecond = 0;
+    private double burst = 0;
+    private double tokens = 0;
+    private long refilledAt = 0;
+
+    /**
+     * @param name endpoint name, used in errors
+     * @param deadline time allowed for a call, retries included
+     * @param maxRetries attempts after the first one
+     */
+    public CallPolicy(String name, Duration deadline, int maxRetries) {
+        this.name = name;
+        this.deadline = deadline;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Open the circuit after the given number of failed calls in a row, for the given time.
+     */
+    public synchronized void setCircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Allow at most the given number of calls per second on average, and up to burst calls at once.
+     */
+    public synchronized void setRateLimit(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    public synchronized CircuitState getCircuitState() {
+        return state;
+    }
+
+    /**
+     * Run a call under this policy.
+     * @param request starts one attempt, called again for every retry
+     * @return future completed with the result of the first successful attempt, or exceptionally with the
+     * error of the last attempt, a {@link CircuitOpenException}, or a TimeoutException once the deadline passes
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long deadlineAt = System.nanoTime() + deadline.toNanos();
+        attempt(request, 0, deadlineAt, result);
+        return result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> request, int retry, long deadlineAt, CompletableFuture<T> result) {
+        if (result.isDone()) return;  // the deadline passed meanwhile
+        if (!allowRequest()) {
+            result.completeExceptionally(new CircuitOpenException(name));
+            return;
+        }
+
+        long wait = reservePermit(deadlineAt);
+        if (wait < 0) {
+            releaseTrial();
+            result.completeExceptionally(new TimeoutException(name + " rate limit wait would pass the deadline"));
+            return;
+        }
+        if (wait > 0) scheduler.schedule(() -> send(request, retry, deadlineAt, result), wait, TimeUnit.NANOSECONDS);
+        else send(request, retry, deadlineAt, result);
+    }
+
+    private <T> void send(Supplier<CompletableFuture<T>> request, int retry, long deadlineAt, CompletableFuture<T> result) {
+        if (result.isDone() || System.nanoTime() >= deadlineAt) {
+            // timed out while waiting for a permit, do not start a request nobody waits for
+            releaseTrial();
+            result.completeExceptionally(new TimeoutException(name + " deadline passed"));
+            return;
+        }
+
+        CompletableFuture<T> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        response.whenComplete((value, error) -> {
+            if (error == null) {
+                onSuccess();
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = unwrap(error);
+            if (!isRetryable(cause)) {
+                onSuccess();  // the endpoint answered, the request itself is wrong
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            onFailure();
+            long backoff = backoff(retry);
+            if (retry >= maxRetries || System.nanoTime() + backoff >= deadlineAt) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            scheduler.schedule(() -> attempt(request, retry + 1, deadlineAt, result), backoff, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    /**
+     * Random delay between 0 and a limit that doubles every retry ("full jitter"), so clients do not retry in step.
+     */
+    private static long backoff(int retry) {
+        long limit = BASE_BACKOFF.toNanos() << Math.min(retry, 10);
+        return ThreadLocalRandom.current().nextLong(limit + 1);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException
+                || error instanceof UncheckedIOException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof API.HttpStatusException) {
+            int code = ((API.HttpStatusException) error).getStatusCode();
+            return code == 429 || code >= 500;
+        }
+        return error instanceof IOException || error instanceof TimeoutException;
+    }
+
+    private synchronized boolean allowRequest() {
+        if (state == CircuitState.OPEN && System.nanoTime() - openedAt >= openDuration.toNanos()) {
+            state = CircuitState.HALF_OPEN;
+            trialRunning = false;
+        }
+        if (state == CircuitState.OPEN) return false;
+        if (state == CircuitState.HALF_OPEN) {
+            if (trialRunning) return false;
+            trialRunning = true;
+        }
+        return true;
+    }
+
+    /**
+     * Let another call be the trial if this one ends without reaching the endpoint.
+     */
+    private synchronized void releaseTrial() {
+        if (state == CircuitState.HALF_OPEN) trialRunning = false;
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = CircuitState.CLOSED;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = CircuitState.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Take a token from the bucket, going into debt if it is empty, unless the token would come too late.
+     * @param deadlineAt System.nanoTime() by which the call must start
+     * @return nanoseconds to wait until the token is really there, 0 to go right away, or -1 if the wait
+     * would pass the deadline, in which case no token is taken
+     */
+    private synchronized long reservePermit(long deadlineAt) {
+        if (permitsPerSecond <= 0) return 0;
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) / 1e9 * permitsPerSecond);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        long wait = (long) ((1 - tokens) / permitsPerSecond * 1e9);
+        if (now + wait >= deadlineAt) return -1;
+        tokens--;
+        return wait;
+    }
+}
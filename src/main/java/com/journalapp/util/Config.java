@@ -0,0 +1,153 @@
+package main.java.com.journalapp.util;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings from .env, read once and kept in memory, so hot paths never touch the disk for them.
+ * <p>
+ * The file is parsed into an immutable snapshot. A background thread watches it and swaps in a new
+ * snapshot once it has stopped changing, so readers always see either the old settings or the new ones,
+ * never a mix. If the file cannot be read, the old settings stay.
+ * Settings read once at startup, like request timeouts and hosts, only change after a restart.
+ */
+public class Config {
+    // keys
+    public static final String BEARER_TOKEN = "BEARER_TOKEN";
+    public static final String HF_TIMEOUT = "HF_TIMEOUT";                          // e.g. 45s
+    public static final String HF_MAX_PARALLEL_CHUNKS = "HF_MAX_PARALLEL_CHUNKS";
+    public static final String WEATHER_TIMEOUT = "WEATHER_TIMEOUT";                // e.g. 8s
+    public static final String CPU_THREADS = "CPU_THREADS";                        // size of AppExecutors.cpu()
+    public static final String ENTRY_FSYNC = "ENTRY_FSYNC";                        // every_commit, explicit_flush or never
+    public static final String MOOD_POLICY = "MOOD_POLICY";                        // local_first, local_only or remote_only
+    public static final String HF_HOST = "HF_HOST";                                // e.g. router.huggingface.co
+    public static final String WEATHER_HOST = "WEATHER_HOST";                      // e.g. api.data.gov.my
+
+    // wait this long after the last change before reloading, editors often write a file in several steps
+    private static final long DEBOUNCE_MS = 200;
+
+    private static final Path PATH = Paths.get(".env").toAbsolutePath();
+
+    private static volatile Map<String, String> snapshot = null;
+    private static boolean watching = false;  // guarded by Config.class
+
+    /**
+     * @return all settings as they are now, e.g. to read several that belong together
+     */
+    public static Map<String, String> getSnapshot() {
+        Map<String, String> current = snapshot;
+        return current != null ? current : load();
+    }
+
+    /**
+     * @return the setting, or the default if it is not set or empty
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = getSnapshot().get(key);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number for " + key + " in .env: " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Read a duration written as "500ms", "30s", "5m" or "1h"; a plain number is seconds.
+     */
+    public static Duration getDuration(String key, Duration defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            if (value.endsWith("ms")) return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2).trim()));
+            if (value.endsWith("s")) return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1).trim()));
+            if (value.endsWith("m")) return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1).trim()));
+            if (value.endsWith("h")) return Duration.ofHours(Long.parseLong(value.substring(0, value.length() - 1).trim()));
+            return Duration.ofSeconds(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid duration for " + key + " in .env: " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Read the file for the first time and start watching it.
+     */
+    private static synchronized Map<String, String> load() {
+        if (snapshot == null) reload();
+        if (!watching) {
+            watching = true;
+            Thread watcher = new Thread(Config::watch, "config-watch");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Read the file into a new snapshot. The first time, a missing or unreadable file means no settings;
+     * later, the previous snapshot is kept, e.g. while an editor replaces the file.
+     */
+    private static void reload() {
+        Map<String, String> env;
+        try {
+            env = EnvLoader.readEnv(PATH.toString());
+        } catch (IOException e) {
+            if (snapshot == null) snapshot = Collections.emptyMap();
+            else System.err.println("Failed to reload .env, keeping the previous settings: " + e.getMessage());
+            return;
+        }
+        snapshot = Collections.unmodifiableMap(env);
+    }
+
+    /**
+     * Reload whenever the file is written, replaced or deleted. Watches the folder, so it also notices
+     * a file that does not exist yet, or one an editor saves by renaming a new file over it.
+     * A burst of events, like a save in several writes, causes one reload after it is over.
+     */
+    private static void watch() {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            PATH.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            while (true) {
+                boolean changed = false;
+                WatchKey key = watcher.take();
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        // on OVERFLOW the context is null, reload to be safe
+                        changed |= event.context() == null || PATH.getFileName().equals(event.context());
+                    }
+                    if (!key.reset()) return;  // the folder is gone
+                    key = changed ? watcher.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS) : null;
+                }
+                if (changed) {
+                    synchronized (Config.class) {
+                        reload();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Demonstrate the use of this class.
+     */
+    public static void main(String[] args) {
+        System.out.println("Token set: " + !getString(BEARER_TOKEN, "").isEmpty());
+        System.out.println("Model timeout: " + getDuration(HF_TIMEOUT, Duration.ofSeconds(45)));
+    }
+}
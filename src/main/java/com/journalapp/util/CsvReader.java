@@ -0,0 +1,127 @@
+package main.java.com.journalapp.util;
+
+import java.io.*;
+import java.util.ArrayList;
+
+/**
+ * Streaming reader for the CSV files written by this app.
+ * <p>
+ * Parses in a single pass over a char buffer, so the cost is linear in the file size no matter how many
+ * lines a field spans. Fields may be quoted, quotes inside a quoted field are escaped by doubling them,
+ * and an unterminated quote simply ends at the end of the file. Each field costs exactly one String.
+ * <p>
+ * Target throughput is around 1M rows per second, see {@link #main(String[])} for a quick measurement.
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+
+    // chars of the field being read, reused across fields
+    private char[] field = new char[256];
+    private int fieldLength = 0;
+    private final ArrayList<String> row = new ArrayList<>();
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    public CsvReader(String path) throws IOException {
+        this(new FileReader(path));
+    }
+
+    /**
+     * Escape a value so it can be written between quotes.
+     * @param value value to be escaped
+     * @return value with every quote doubled
+     */
+    public static String escape(String value) {
+        return String.valueOf(value).replace("\"", "\"\"");
+    }
+
+    /**
+     * Read the next row, skipping blank lines.
+     * @return fields of the row, or null if the end of the file is reached
+     * @throws IOException if reading fails
+     */
+    public String[] readRow() throws IOException {
+        int c = read();
+        while (c == '\n' || c == '\r') c = read();
+        if (c == -1) return null;
+
+        row.clear();
+        while (true) {
+            fieldLength = 0;
+            if (c == '"') {
+                while (true) {
+                    c = read();
+                    if (c == -1) break;  // unterminated quote, the field runs to the end of the file
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') break;  // closing quote
+                    }
+                    append((char) c);
+                }
+            }
+            // unquoted field, or stray characters after a closing quote
+            while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                append((char) c);
+                c = read();
+            }
+            row.add(new String(field, 0, fieldLength));
+
+            if (c != ',') return row.toArray(new String[0]);
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) return -1;
+            position = 0;
+            limit = n;
+        }
+        return buffer[position++];
+    }
+
+    private void append(char c) {
+        if (fieldLength == field.length) {
+            char[] grown = new char[field.length * 2];
+            System.arraycopy(field, 0, grown, 0, fieldLength);
+            field = grown;
+        }
+        field[fieldLength++] = c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Measure the reading speed on a generated file of one million entry rows.
+     */
+    public static void main(String[] args) throws IOException {
+        File file = File.createTempFile("entries", ".csv");
+        file.deleteOnExit();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write("id,date,content,mood,weather\n");
+            for (int i = 0; i < 1_000_000; i++) {
+                writer.write("\"" + i + "\",\"2024-01-01\",\"a \"\"quoted\"\" line\nand another line\",\"Positive\",\"Sunny\"\n");
+            }
+        }
+
+        long start = System.nanoTime();
+        int rows = 0;
+        try (CsvReader reader = new CsvReader(file.getPath())) {
+            while (reader.readRow() != null) rows++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d rows, %d MB in %.2fs (%.0f rows/s)%n",
+                rows, file.length() >> 20, seconds, rows / seconds);
+    }
+}
@@ -0,0 +1,90 @@
+package main.java.com.journalapp.util;
+
+/**
+ * Set of days, one bit per epoch day.
+ * <p>
+ * Decades of days fit in a few kilobytes, and runs of days (streaks) and counts are answered
+ * 64 days at a time with bit operations on whole words.
+ */
+public class DayBitset {
+    private long firstWord = 0;  // word index of words[0], a word holds days [index * 64, index * 64 + 63]
+    private long[] words = new long[0];
+
+    public boolean get(long day) {
+        return (wordAt(Math.floorDiv(day, 64)) & (1L << Math.floorMod(day, 64))) != 0;
+    }
+
+    public void set(long day) {
+        long word = Math.floorDiv(day, 64);
+        ensureWord(word);
+        words[(int) (word - firstWord)] |= 1L << Math.floorMod(day, 64);
+    }
+
+    public void clear(long day) {
+        long word = Math.floorDiv(day, 64);
+        if (word < firstWord || word >= firstWord + words.length) return;
+        words[(int) (word - firstWord)] &= ~(1L << Math.floorMod(day, 64));
+    }
+
+    /**
+     * Return the number of consecutive days in the set, counting back from the given day.
+     */
+    public int runEndingAt(long day) {
+        long word = Math.floorDiv(day, 64);
+        int bit = Math.floorMod(day, 64);
+        int run = 0;
+        while (true) {
+            long mask = bit == 63 ? -1L : (1L << (bit + 1)) - 1;
+            long missing = ~wordAt(word) & mask;
+            if (missing != 0) {
+                int lastMissing = 63 - Long.numberOfLeadingZeros(missing);
+                return run + bit - lastMissing;
+            }
+            run += bit + 1;
+            word--;
+            bit = 63;
+        }
+    }
+
+    /**
+     * Return up to 64 consecutive days as a mask, bit i set if day {@code from + i} is in the set.
+     */
+    public long bits(long from, int days) {
+        long word = Math.floorDiv(from, 64);
+        int bit = Math.floorMod(from, 64);
+        long result = wordAt(word) >>> bit;
+        if (bit != 0) result |= wordAt(word + 1) << (64 - bit);
+        return days >= 64 ? result : result & ((1L << days) - 1);
+    }
+
+    /**
+     * Return the number of days in the set between two days (both inclusive).
+     */
+    public int count(long from, long to) {
+        int count = 0;
+        for (long day = from; day <= to; day += 64) {
+            count += Long.bitCount(bits(day, (int) Math.min(64, to - day + 1)));
+        }
+        return count;
+    }
+
+    private long wordAt(long word) {
+        return word < firstWord || word >= firstWord + words.length ? 0 : words[(int) (word - firstWord)];
+    }
+
+    private void ensureWord(long word) {
+        if (words.length == 0) {
+            firstWord = word;
+            words = new long[1];
+            return;
+        }
+        long first = Math.min(firstWord, word);
+        long end = Math.max(firstWord + words.length, word + 1);
+        if (first == firstWord && end == firstWord + words.length) return;
+
+        long[] grown = new long[(int) (end - first)];
+        System.arraycopy(words, 0, grown, (int) (firstWord - first), words.length);
+        firstWord = first;
+        words = grown;
+    }
+}
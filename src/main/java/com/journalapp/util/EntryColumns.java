@@ -0,0 +1,129 @@
+package main.java.com.journalapp.util;
+
+import main.java.com.journalapp.model.Entry;
+import main.java.com.journalapp.model.Mood;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-only, column-oriented copy of a user's entries for analytics.
+ * <p>
+ * Entries are sorted by date and split into primitive arrays (epoch day, mood code, weather code),
+ * so summaries over the whole history run as plain loops without boxing or allocation.
+ * The entries themselves are kept in a parallel column to reach their content.
+ * A new copy is built after every change, see {@link UserEntries#columns()}.
+ */
+public class EntryColumns {
+    private final int size;
+    private final int[] epochDays;  // ascending
+    private final byte[] moods;
+    private final byte[] weathers;
+    private final Entry[] rows;
+
+    /**
+     * Build the columns from entries grouped by date, in ascending date order.
+     */
+    EntryColumns(Collection<? extends List<Entry>> entriesByDate, int size) {
+        this.size = size;
+        this.epochDays = new int[size];
+        this.moods = new byte[size];
+        this.weathers = new byte[size];
+        this.rows = new Entry[size];
+
+        int i = 0;
+        for (List<Entry> day : entriesByDate) {
+            for (Entry entry : day) {
+                epochDays[i] = (int) entry.getDate().toEpochDay();
+                moods[i] = entry.getMoodValue().getCode();
+                weathers[i] = entry.getWeatherValue().getCode();
+                rows[i] = entry;
+                i++;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getEpochDay(int row) {
+        return epochDays[row];
+    }
+
+    public byte getMood(int row) {
+        return moods[row];
+    }
+
+    public byte getWeather(int row) {
+        return weathers[row];
+    }
+
+    public Entry getEntry(int row) {
+        return rows[row];
+    }
+
+    /**
+     * Return the first row dated on or after the given day, or size() if there is none.
+     */
+    public int firstRowFrom(int epochDay) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < epochDay) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    public boolean hasDay(int epochDay) {
+        int row = firstRowFrom(epochDay);
+        return row < size && epochDays[row] == epochDay;
+    }
+
+    /**
+     * Count entries per mood code between two days (both inclusive).
+     * @param counts array indexed by mood code, counts are added to it
+     */
+    public void countMoods(int fromDay, int toDay, int[] counts) {
+        for (int row = firstRowFrom(fromDay); row < size && epochDays[row] <= toDay; row++) {
+            counts[moods[row]]++;
+        }
+    }
+
+    /**
+     * Return the number of consecutive days with at least one entry, counting back from the given day.
+     */
+    public int streakEndingAt(int epochDay) {
+        int streak = 0;
+        int expected = epochDay;
+        for (int row = firstRowFrom(epochDay + 1) - 1; row >= 0; row--) {
+            int day = epochDays[row];
+            if (day == expected) {
+                streak++;
+                expected--;
+            }
+            else if (day < expected) {
+                break;  // a day without entries
+            }
+            // otherwise another entry of the day just counted
+        }
+        return streak;
+    }
+
+    /**
+     * Fill one mood code per day of the given year, the last entry of a day wins.
+     * Days without entries get {@link Mood#NONE}.
+     * @param moodsByDay array of at least 366 elements, indexed by day of year - 1
+     */
+    public void fillYearMoods(int year, byte[] moodsByDay) {
+        Arrays.fill(moodsByDay, Mood.NONE.getCode());
+        int first = (int) LocalDate.of(year, 1, 1).toEpochDay();
+        int last = (int) LocalDate.of(year, 12, 31).toEpochDay();
+        for (int row = firstRowFrom(first); row < size && epochDays[row] <= last; row++) {
+            moodsByDay[epochDays[row] - first] = moods[row];
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package main.java.com.journalapp.util;
+
+import main.java.com.journalapp.model.Entry;
+
+/**
+ * Gets notified of changes to a user's entries. An edit is reported as the old entry being
+ * removed and the new one added.
+ * <p>
+ * Called while UserEntries holds its lock, right after its indexes are updated, so keep it short.
+ */
+public interface EntryListener {
+    void entryAdded(Entry entry);
+
+    void entryRemoved(Entry entry);
+}
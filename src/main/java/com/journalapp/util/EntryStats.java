@@ -0,0 +1,174 @@
+package main.java.com.journalapp.util;
+
+import main.java.com.journalapp.model.Entry;
+import main.java.com.journalapp.model.Mood;
+import main.java.com.journalapp.model.WeatherCondition;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Dashboard statistics of a user, kept up to date as entries change.
+ * <p>
+ * Built once from {@link EntryColumns} when the entries are loaded, then updated in O(log n) per
+ * created, edited or deleted entry, so reading them never walks the whole history.
+ * Shares the lock and the date index of the UserEntries that owns it.
+ */
+public class EntryStats implements EntryListener {
+    private final Object lock;
+    private final NavigableMap<LocalDate, ? extends List<Entry>> entriesByDate;
+
+    private int total = 0;
+    private final TreeMap<Integer, Integer> entriesPerYear = new TreeMap<>();
+    // mood code per day of year, the last entry written for a day wins
+    private final HashMap<Integer, byte[]> moodsPerYear = new HashMap<>();
+    // days with at least one entry
+    private final DayBitset days;
+
+    EntryStats(Object lock, NavigableMap<LocalDate, ? extends List<Entry>> entriesByDate, EntryColumns columns) {
+        this.lock = lock;
+        this.entriesByDate = entriesByDate;
+
+        days = new DayBitset();
+        for (LocalDate date : entriesByDate.keySet()) days.set(date.toEpochDay());
+
+        total = columns.size();
+        int row = 0;
+        while (row < total) {
+            int year = LocalDate.ofEpochDay(columns.getEpochDay(row)).getYear();
+            int first = (int) LocalDate.of(year, 1, 1).toEpochDay();
+            int next = (int) LocalDate.of(year + 1, 1, 1).toEpochDay();
+            int end = columns.firstRowFrom(next);
+
+            entriesPerYear.put(year, end - row);
+            byte[] moods = new byte[366];
+            columns.fillYearMoods(year, moods);
+            moodsPerYear.put(year, moods);
+            row = end;
+        }
+    }
+
+    @Override
+    public void entryAdded(Entry entry) {
+        LocalDate date = entry.getDate();
+        total++;
+        days.set(date.toEpochDay());
+        entriesPerYear.merge(date.getYear(), 1, Integer::sum);
+        yearMoods(date.getYear())[date.getDayOfYear() - 1] = entry.getMoodValue().getCode();
+    }
+
+    @Override
+    public void entryRemoved(Entry entry) {
+        LocalDate date = entry.getDate();
+        total--;
+        if (!entriesByDate.containsKey(date)) days.clear(date.toEpochDay());
+        if (entriesPerYear.merge(date.getYear(), -1, Integer::sum) == 0) {
+            entriesPerYear.remove(date.getYear());
+            moodsPerYear.remove(date.getYear());
+            return;
+        }
+        // fall back to the last remaining entry of that day
+        Entry last = lastEntryOn(date);
+        yearMoods(date.getYear())[date.getDayOfYear() - 1] = last != null ? last.getMoodValue().getCode() : Mood.NONE.getCode();
+    }
+
+    private byte[] yearMoods(int year) {
+        return moodsPerYear.computeIfAbsent(year, y -> new byte[366]);  // zeroes are Mood.NONE
+    }
+
+    private Entry lastEntryOn(LocalDate date) {
+        List<Entry> day = entriesByDate.get(date);
+        return day == null || day.isEmpty() ? null : day.get(day.size() - 1);
+    }
+
+    public int getTotal() {
+        synchronized (lock) {
+            return total;
+        }
+    }
+
+    /**
+     * Return the years with at least one entry, in ascending order.
+     */
+    public List<Integer> getYears() {
+        synchronized (lock) {
+            return new ArrayList<>(entriesPerYear.keySet());
+        }
+    }
+
+    /**
+     * Copy the mood code of every day of the given year, {@link Mood#NONE} for days without entries.
+     * @param moodsByDay array of at least 366 elements, indexed by day of year - 1
+     */
+    public void fillYearMoods(int year, byte[] moodsByDay) {
+        synchronized (lock) {
+            byte[] moods = moodsPerYear.get(year);
+            if (moods == null) Arrays.fill(moodsByDay, Mood.NONE.getCode());
+            else System.arraycopy(moods, 0, moodsByDay, 0, moods.length);
+        }
+    }
+
+    public boolean hasEntryOn(LocalDate date) {
+        synchronized (lock) {
+            return days.get(date.toEpochDay());
+        }
+    }
+
+    /**
+     * Return which of up to 64 consecutive days have entries.
+     * @return mask with bit i set if the day {@code from + i} has an entry
+     */
+    public long getActivity(LocalDate from, int length) {
+        synchronized (lock) {
+            return days.bits(from.toEpochDay(), length);
+        }
+    }
+
+    /**
+     * Return the weather of the last entry written on the given date, or NONE if there is none.
+     */
+    public WeatherCondition getWeatherOn(LocalDate date) {
+        synchronized (lock) {
+            Entry last = lastEntryOn(date);
+            return last != null ? last.getWeatherValue() : WeatherCondition.NONE;
+        }
+    }
+
+    /**
+     * Return the number of consecutive days with entries up to today.
+     * A streak still counts if today's entry is not written yet.
+     */
+    public int getStreak(LocalDate today) {
+        synchronized (lock) {
+            long day = today.toEpochDay();
+            return days.get(day) ? days.runEndingAt(day) : days.runEndingAt(day - 1);
+        }
+    }
+
+    /**
+     * Return the most common mood of the 7 days up to today, or NONE if nothing was written.
+     */
+    public Mood getWeeklyMood(LocalDate today) {
+        synchronized (lock) {
+            int[] freq = new int[Mood.values().length];
+            for (List<Entry> day : entriesByDate.subMap(today.minusDays(6), true, today, true).values()) {
+                for (Entry entry : day) freq[entry.getMoodValue().getCode()]++;
+            }
+
+            int mostCommon = Mood.NONE.getCode();
+            int best = 0;
+            for (int code = 0; code < freq.length; code++) {
+                if (code != Mood.NONE.getCode() && code != Mood.PENDING.getCode() && freq[code] > best) {
+                    mostCommon = code;
+                    best = freq[code];
+                }
+            }
+            return Mood.fromCode(mostCommon);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package main.java.com.journalapp.util;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind appender for a single log file.
+ * <p>
+ * Records are queued in memory and written by the persistence thread of the writer's owner, so callers
+ * (usually the JavaFX thread) never wait for the disk. Records that arrive within a short window are
+ * written together in one go (group commit).
+ */
+public class EntryWriter {
+    /**
+     * When written records are forced to the disk.
+     */
+    public enum FsyncPolicy {
+        EVERY_COMMIT,    // after every group of records, safest
+        EXPLICIT_FLUSH,  // only when flush() is called, e.g. on logout and shutdown
+        NEVER            // leave it to the operating system
+    }
+
+    private static final long GROUP_COMMIT_DELAY_MS = 50;
+    private static volatile FsyncPolicy fsyncPolicy = readFsyncPolicy();
+
+    private final String path;
+    private final ScheduledExecutorService thread;
+
+    // records (String) and tasks (Runnable) waiting for the writer thread, in order
+    private ArrayList<Object> pending = new ArrayList<>();
+    private boolean scheduled = false;
+    private boolean unsynced = false;  // only touched by the writer thread
+
+    /**
+     * @param owner e.g. the user id; writers of the same owner share one thread, see {@link AppExecutors#persistence(String)}
+     */
+    public EntryWriter(String path, String owner) {
+        this.path = path;
+        this.thread = AppExecutors.persistence(owner);
+    }
+
+    /**
+     * Read the policy from ENTRY_FSYNC in .env, e.g. "explicit_flush"; every commit if it is not set.
+     */
+    private static FsyncPolicy readFsyncPolicy() {
+        String value = Config.getString(Config.ENTRY_FSYNC, null);
+        if (value == null) return FsyncPolicy.EVERY_COMMIT;
+        try {
+            return FsyncPolicy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid fsync policy for " + Config.ENTRY_FSYNC + " in .env: " + value);
+            return FsyncPolicy.EVERY_COMMIT;
+        }
+    }
+
+    public static void setFsyncPolicy(FsyncPolicy policy) {
+        fsyncPolicy = policy;
+    }
+
+    public static FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * Queue a record to be appended to the file, followed by a line break.
+     */
+    public synchronized void append(String record) {
+        pending.add(record);
+        scheduleCommit();
+    }
+
+    /**
+     * Queue a task to run on the writer thread once every record appended before it is written.
+     * Used to rotate and compact the file without racing the appends.
+     */
+    public synchronized void runAfterPending(Runnable task) {
+        pending.add(task);
+        scheduleCommit();
+    }
+
+    private void scheduleCommit() {
+        if (scheduled) return;
+        scheduled = true;
+        thread.schedule(this::commit, GROUP_COMMIT_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write everything queued so far and force it to the disk, unless the policy is {@link FsyncPolicy#NEVER}.
+     * Blocks until done, call it on logout and shutdown rather than after every change.
+     */
+    public void flush() {
+        try {
+            thread.submit(() -> {
+                commit();
+                if (fsyncPolicy != FsyncPolicy.NEVER) sync();
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write all queued records in order. Runs on the writer thread.
+     */
+    private void commit() {
+        ArrayList<Object> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new ArrayList<>();
+            scheduled = false;
+        }
+
+        StringBuilder records = new StringBuilder();
+        for (Object item : batch) {
+            if (item instanceof String) {
+                records.append((String) item).append('\n');
+            }
+            else {
+                write(records);
+                records.setLength(0);
+                ((Runnable) item).run();
+            }
+        }
+        write(records);
+    }
+
+    private void write(StringBuilder records) {
+        if (records.length() == 0) return;
+        try (FileOutputStream out = new FileOutputStream(path, true);
+             Writer writer = new OutputStreamWriter(out)) {
+            writer.write(records.toString());
+            writer.flush();
+            if (fsyncPolicy == FsyncPolicy.EVERY_COMMIT) out.getFD().sync();
+            else unsynced = true;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void sync() {
+        if (!unsynced || !Files.exists(Paths.get(path))) return;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE)) {
+            channel.force(true);
+            unsynced = false;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
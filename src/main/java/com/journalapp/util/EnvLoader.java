@@ -2,6 +2,7 @@ package main.java.com.journalapp.util;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,6 +17,18 @@ public class EnvLoader {
      * @return a Map containing the environment variables as key-value pairs
      */
     public static Map<String, String> loadEnv(String filePath) {
+        try {
+            return readEnv(filePath);
+        } catch (IOException e) {
+            System.err.println("Failed to load .env file: " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Same as {@link #loadEnv(String)}, but throws if the file cannot be read instead of returning what was read so far.
+     */
+    public static Map<String, String> readEnv(String filePath) throws IOException {
         Map<String, String> env = new HashMap<>();
         
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
@@ -41,8 +54,6 @@ public class EnvLoader {
                     env.put(key, value);
                 }
             }
-        } catch (Exception e) {
-            System.err.println("Failed to load .env file: " + e.getMessage());
         }
         
         return env;
@@ -0,0 +1,271 @@
+package main.java.com.journalapp.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Analyzes moods with the <a href="https://huggingface.co/tabularisai/multilingual-sentiment-analysis">tabularisai/multilingual-sentiment-analysis model</a>
+ * on the HuggingFace Inference API.
+ * <p>
+ * Accurate and multilingual, but every text is a request of hundreds of milliseconds or more, limited by the token.
+ * Long texts are split into chunks that fit the model, analyzed side by side, see {@link TextChunker}.
+ * Results are cached by text, see {@link AnalysisCache}. Token is needed, setup BEARER_TOKEN in .env first.
+ */
+public class HuggingFaceAnalyzer implements SentimentAnalyzer {
+    private static final String MODEL = "tabularisai/multilingual-sentiment-analysis";
+    private static final String HOST = Config.getString(Config.HF_HOST, "router.huggingface.co");
+    private static final String URL = "https://" + HOST + "/hf-inference/models/" + MODEL;
+    // the model reads at most 512 tokens, keep each request well below
+    private static final int MAX_CHUNK_CHARS = 1200;
+    private static final int MAX_PARALLEL_CHUNKS = Math.max(1, Config.getInt(Config.HF_MAX_PARALLEL_CHUNKS, 4));
+
+    private final AnalysisCache cache = new AnalysisCache();
+
+    static {
+        // the model can take a while to wake up; the rate limit keeps saves and backfills within the token quota
+        CallPolicy policy = new CallPolicy(HOST, Config.getDuration(Config.HF_TIMEOUT, Duration.ofSeconds(45)), 2);
+        policy.setCircuitBreaker(5, Duration.ofSeconds(30));
+        policy.setRateLimit(2, 10);
+        API.setPolicy(URI.create(URL).getHost(), policy);
+    }
+
+    @Override
+    public CompletableFuture<String> analyzeAsync(String text) {
+        return analyzeAsync(text, cache.get(MODEL, text));
+    }
+
+    /**
+     * Same as {@link #analyzeAsync(String)}, for a text whose cache lookup was counted already, e.g. by
+     * {@link #getCached(String)} when the entry was saved. Does not count towards the hit rate again.
+     */
+    public CompletableFuture<String> analyzeDeferredAsync(String text) {
+        return analyzeAsync(text, cache.peek(MODEL, text));
+    }
+
+    private CompletableFuture<String> analyzeAsync(String text, String cached) {
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        String token = loadToken();
+        if (token == null) return CompletableFuture.completedFuture("");
+
+        List<String> chunks = TextChunker.split(text, MAX_CHUNK_CHARS);
+        return analyzeChunks(token, chunks)
+                .thenApply(mood -> {
+                    cache.put(MODEL, text, mood);
+                    return mood;
+                })
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return "";
+                });
+    }
+
+    /**
+     * Analyze many texts with a single request, the endpoint accepts a list of inputs.
+     * Texts analyzed before are answered from the cache and not sent again, and long texts are analyzed
+     * on their own in chunks.
+     * @return future completed with one mood per text, in the same order;
+     * empty strings for the texts that could not be analyzed
+     */
+    @Override
+    public CompletableFuture<List<String>> analyzeBatchAsync(List<String> texts) {
+        String[] moods = new String[texts.size()];
+        ArrayList<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            moods[i] = cache.get(MODEL, texts.get(i));
+            if (moods[i] == null) missing.add(i);
+        }
+        if (missing.isEmpty()) return CompletableFuture.completedFuture(Arrays.asList(moods));
+
+        String token = loadToken();
+        if (token == null) return CompletableFuture.completedFuture(Collections.nCopies(texts.size(), ""));
+
+        ArrayList<Integer> batched = new ArrayList<>();
+        ArrayList<CompletableFuture<Void>> parts = new ArrayList<>();
+        for (int i : missing) {
+            if (texts.get(i).length() > MAX_CHUNK_CHARS) {
+                int index = i;
+                parts.add(analyzeAsync(texts.get(i)).thenAccept(mood -> moods[index] = mood));
+            }
+            else {
+                batched.add(i);
+            }
+        }
+        if (!batched.isEmpty()) parts.add(postBatch(token, texts, batched, moods));
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(done -> Arrays.asList(moods));
+    }
+
+    /**
+     * Send the given texts as one list of inputs, filling in their moods.
+     */
+    private CompletableFuture<Void> postBatch(String token, List<String> texts, List<Integer> batched, String[] moods) {
+        StringJoiner inputs = new StringJoiner(", ", "{\"inputs\": [", "]}");
+        for (int i : batched) inputs.add(jsonString(texts.get(i)));
+        return new API().postAsync(URL, token, inputs.toString(), HuggingFaceAnalyzer::readLabels)
+                .thenAccept(labels -> {
+                    if (labels.size() < batched.size()) throw new IllegalStateException("Too few results: " + labels);
+                    HashMap<String, String> answered = new HashMap<>();
+                    for (int k = 0; k < batched.size(); k++) {
+                        int i = batched.get(k);
+                        moods[i] = labels.get(k);
+                        answered.put(texts.get(i), moods[i]);
+                    }
+                    cache.putAll(MODEL, answered);  // one write of the cache file per batch
+                })
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    for (int i : batched) moods[i] = "";
+                    return null;
+                });
+    }
+
+    /**
+     * Analyze the chunks of a text, at most MAX_PARALLEL_CHUNKS requests at a time.
+     * The scores of the chunks are added up weighted by chunk length, and the best label wins.
+     */
+    private CompletableFuture<String> analyzeChunks(String token, List<String> chunks) {
+        AtomicReferenceArray<Map<String, Double>> scores = new AtomicReferenceArray<>(chunks.size());
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(MAX_PARALLEL_CHUNKS, chunks.size())];
+        for (int lane = 0; lane < lanes.length; lane++) {
+            lanes[lane] = analyzeNextChunk(token, chunks, next, scores);
+        }
+
+        return CompletableFuture.allOf(lanes).thenApply(done -> {
+            HashMap<String, Double> total = new HashMap<>();
+            for (int i = 0; i < chunks.size(); i++) {
+                int weight = chunks.get(i).length();
+                scores.get(i).forEach((label, score) -> total.merge(label, score * weight, Double::sum));
+            }
+            String best = "";
+            for (Map.Entry<String, Double> label : total.entrySet()) {
+                if (best.isEmpty() || label.getValue() > total.get(best)) best = label.getKey();
+            }
+            return best;
+        });
+    }
+
+    /**
+     * Take the next chunk nobody analyzed yet and analyze it, then keep going until no chunk is left.
+     */
+    private CompletableFuture<Void> analyzeNextChunk(String token, List<String> chunks, AtomicInteger next,
+                                                     AtomicReferenceArray<Map<String, Double>> scores) {
+        int i = next.getAndIncrement();
+        if (i >= chunks.size()) return CompletableFuture.completedFuture(null);
+
+        String jsonBody = "{\"inputs\": " + jsonString(chunks.get(i)) + "}";
+        return new API().postAsync(URL, token, jsonBody, HuggingFaceAnalyzer::readScores).thenCompose(chunkScores -> {
+            scores.set(i, chunkScores);
+            return analyzeNextChunk(token, chunks, next, scores);
+        });
+    }
+
+    /**
+     * Read the first label of each result list from the response to a list of inputs, results are sorted by score.
+     */
+    private static List<String> readLabels(InputStream body) throws IOException {
+        JsonReader json = new JsonReader(body);
+        ArrayList<String> labels = new ArrayList<>();
+        if (json.next() != JsonReader.Token.BEGIN_ARRAY) throw new IOException("Unexpected response");
+        while (json.peek() == JsonReader.Token.BEGIN_ARRAY) {
+            labels.add(json.findInValue("[0].label"));
+        }
+        return labels;
+    }
+
+    /**
+     * Read the score of every label from the response to a single input, shaped [[{"label":..,"score":..},..]].
+     */
+    private static Map<String, Double> readScores(InputStream body) throws IOException {
+        JsonReader json = new JsonReader(body);
+        HashMap<String, Double> scores = new HashMap<>();
+        if (json.next() != JsonReader.Token.BEGIN_ARRAY || json.next() != JsonReader.Token.BEGIN_ARRAY) {
+            throw new IOException("Unexpected response");
+        }
+        while (json.next() == JsonReader.Token.BEGIN_OBJECT) {
+            String label = null;
+            double score = Double.NaN;
+            while (json.next() == JsonReader.Token.NAME) {
+                String name = json.getText();
+                if (name.equals("label")) {
+                    json.next();
+                    label = json.getText();
+                }
+                else if (name.equals("score")) {
+                    if (json.next() == JsonReader.Token.NUMBER) score = Double.parseDouble(json.getText());
+                }
+                else {
+                    json.skipValue();
+                }
+            }
+            if (label != null && !Double.isNaN(score)) scores.put(label, score);
+        }
+        // the rest of the response is other inputs, there are none
+        if (scores.isEmpty()) throw new IOException("No scores in response");
+        return scores;
+    }
+
+    /**
+     * @return the token from .env, or null if it is not set
+     */
+    private static String loadToken() {
+        String token = Config.getString(Config.BEARER_TOKEN, null);
+
+        if (token == null) {
+            System.err.println("ERROR: BEARER_TOKEN is not set in the environment. Aborting operation.");
+            return null;
+        }
+        return token;
+    }
+
+    /**
+     * Quote a text as a JSON string, entries often contain quotes and line breaks.
+     */
+    private static String jsonString(String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * Return the result of an earlier request for the text, without sending one.
+     * Counts towards the hit rate, call it once per text that may need a request.
+     * @return the mood, or null if the text was not analyzed yet
+     */
+    public String getCached(String text) {
+        return cache.get(MODEL, text);
+    }
+
+    /**
+     * Same as {@link #getCached(String)}, but not counted, for looking up a text again.
+     */
+    public String peekCached(String text) {
+        return cache.peek(MODEL, text);
+    }
+
+    /**
+     * @return the cache of analyzed texts, e.g. to read its hit rate
+     */
+    public AnalysisCache getCache() {
+        return cache;
+    }
+
+}
@@ -0,0 +1,287 @@
+package main.java.com.journalapp.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Pull-style JSON tokenizer that reads straight from a stream, for picking a few values out of API responses.
+ * <p>
+ * Call {@link #next()} to read one token at a time, or {@link #find(String)} to jump to the value at a path
+ * and stop reading there. Values that are skipped are scanned without being copied, so large responses cost
+ * little more than reading their bytes. Commas and colons are not checked, the input is trusted to be JSON.
+ */
+public class JsonReader implements Closeable {
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY,
+        NAME,     // a member name, see getText()
+        STRING,   // see getText()
+        NUMBER,   // see getText()
+        LITERAL,  // true, false, or null, see getText()
+        END       // end of input
+    }
+
+    private final Reader in;
+    private final char[] buffer = new char[4096];
+    private int position = 0;
+    private int limit = 0;
+
+    private Token peeked = null;
+    private final StringBuilder text = new StringBuilder();  // text of the last NAME, STRING, NUMBER or LITERAL
+    private boolean keepText = true;  // off while skipping
+
+    public JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    public JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the next token.
+     */
+    public Token next() throws IOException {
+        if (peeked != null) {
+            Token token = peeked;
+            peeked = null;
+            return token;
+        }
+        return read();
+    }
+
+    /**
+     * Return the next token without consuming it. Its text is available through getText() already.
+     */
+    public Token peek() throws IOException {
+        if (peeked == null) peeked = read();
+        return peeked;
+    }
+
+    /**
+     * @return the text of the last NAME, STRING, NUMBER or LITERAL read, unescaped
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Skip the next value, with everything nested in it.
+     */
+    public void skipValue() throws IOException {
+        keepText = false;
+        try {
+            int depth = 0;
+            do {
+                Token token = next();
+                if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) depth++;
+                else if (token == Token.END_OBJECT || token == Token.END_ARRAY) depth--;
+                else if (token == Token.END) return;
+                // a NAME is followed by its value, keep going
+                else if (token == Token.NAME) continue;
+            } while (depth > 0);
+        } finally {
+            keepText = true;
+        }
+    }
+
+    /**
+     * Read up to the value at the given path, relative to the next value, and stop right after it.
+     * The rest of the input is left unread, so this is meant to be the last read.
+     * @param path e.g. "[0][0].label" or "[0].summary_forecast"
+     * @return the value as text if it is a string, number, true or false; null if it is missing, null,
+     * or an object or array
+     */
+    public String find(String path) throws IOException {
+        return find(parsePath(path), 0, false);
+    }
+
+    /**
+     * Same as {@link #find(String)}, but reads the whole next value, so reading can go on after it.
+     */
+    public String findInValue(String path) throws IOException {
+        return find(parsePath(path), 0, true);
+    }
+
+    private String find(Object[] path, int depth, boolean readRest) throws IOException {
+        Token token = peek();
+        if (depth == path.length) {
+            if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+                skipValue();
+                return null;
+            }
+            next();
+            if (token == Token.END || token == Token.LITERAL && textEquals("null")) return null;
+            return getText();
+        }
+
+        Object segment = path[depth];
+        String found = null;
+        if (token == Token.BEGIN_ARRAY && segment instanceof Integer) {
+            next();
+            int index = 0;
+            while (peek() != Token.END_ARRAY && peek() != Token.END) {
+                if (index++ == (Integer) segment) {
+                    found = find(path, depth + 1, readRest);
+                    if (!readRest) return found;
+                }
+                else {
+                    skipValue();
+                }
+            }
+            next();
+        }
+        else if (token == Token.BEGIN_OBJECT && segment instanceof String) {
+            next();
+            while (peek() != Token.END_OBJECT && peek() != Token.END) {
+                next();  // NAME
+                if (found == null && textEquals((String) segment)) {
+                    found = find(path, depth + 1, readRest);
+                    if (!readRest) return found;
+                }
+                else {
+                    skipValue();
+                }
+            }
+            next();
+        }
+        else {
+            skipValue();  // not what the path expects
+        }
+        return found;
+    }
+
+    private boolean textEquals(String value) {
+        return value.contentEquals(text);
+    }
+
+    /**
+     * Split "[0][0].label" into 0, 0, "label".
+     */
+    private static Object[] parsePath(String path) {
+        ArrayList<Object> segments = new ArrayList<>();
+        int i = 0;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '[') {
+                int end = path.indexOf(']', i);
+                segments.add(Integer.parseInt(path.substring(i + 1, end)));
+                i = end + 1;
+            }
+            else {
+                if (c == '.') i++;
+                int end = i;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') end++;
+                segments.add(path.substring(i, end));
+                i = end;
+            }
+        }
+        return segments.toArray();
+    }
+
+    private Token read() throws IOException {
+        int c = nextNonSpace();
+        switch (c) {
+            case -1: return Token.END;
+            case '{': return Token.BEGIN_OBJECT;
+            case '}': return Token.END_OBJECT;
+            case '[': return Token.BEGIN_ARRAY;
+            case ']': return Token.END_ARRAY;
+            case '"':
+                readString();
+                if (peekNonSpace() == ':') {
+                    position++;
+                    return Token.NAME;
+                }
+                return Token.STRING;
+            default:
+                text.setLength(0);
+                while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                    if (keepText) text.append((char) c);
+                    c = readChar();
+                }
+                if (c != -1) position--;  // leave the delimiter for the next token
+                return text.length() > 0 && Character.isLetter(text.charAt(0)) ? Token.LITERAL : Token.NUMBER;
+        }
+    }
+
+    /**
+     * Read a string after its opening quote.
+     */
+    private void readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = readChar();
+            if (c == -1 || c == '"') return;
+            if (c == '\\') {
+                c = readChar();
+                switch (c) {
+                    case 'b': c = '\b'; break;
+                    case 'f': c = '\f'; break;
+                    case 'n': c = '\n'; break;
+                    case 'r': c = '\r'; break;
+                    case 't': c = '\t'; break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) code = code * 16 + Character.digit(readChar(), 16);
+                        c = code;
+                        break;
+                    default: break;  // \" \\ \/ stand for themselves
+                }
+            }
+            if (keepText) text.append((char) c);
+        }
+    }
+
+    /**
+     * Skip whitespace, commas and colons, and return the next character.
+     */
+    private int nextNonSpace() throws IOException {
+        while (true) {
+            int c = readChar();
+            if (c != ',' && c != ':' && !Character.isWhitespace(c)) return c;
+        }
+    }
+
+    private int peekNonSpace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) return -1;
+            char c = buffer[position];
+            if (!Character.isWhitespace(c)) return c;
+            position++;
+        }
+    }
+
+    private int readChar() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        limit = in.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Demonstrate the use of this class.
+     */
+    public static void main(String[] args) throws IOException {
+        String sentiment = "[[{\"label\":\"Negative\",\"score\":0.61},{\"label\":\"Neutral\",\"score\":0.2}]]";
+        System.out.println(new JsonReader(new StringReader(sentiment)).find("[0][0].label"));  // Negative
+
+        String forecast = "[{\"location\":{\"location_id\":\"Ds058\",\"location_name\":\"WP Kuala Lumpur\"},"
+                + "\"date\":\"2025-01-01\",\"morning_forecast\":\"Tiada hujan\",\"summary_forecast\":\"Hujan di beberapa tempat\","
+                + "\"min_temp\":24,\"max_temp\":33}]";
+        System.out.println(new JsonReader(new StringReader(forecast)).find("[0].summary_forecast"));
+    }
+}
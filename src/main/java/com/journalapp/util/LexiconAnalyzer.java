@@ -0,0 +1,169 @@
+package main.java.com.journalapp.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Analyzes moods in-process with a small word list, no network needed.
+ * <p>
+ * Every known word adds its weight (-3 to +3) to the score of the text. A negation ("not", "never", ...)
+ * flips the next few words, and an intensifier ("very", "so", ...) strengthens the next one.
+ * Takes microseconds, but only knows English and misses what a model would catch.
+ */
+public class LexiconAnalyzer implements SentimentAnalyzer {
+    private static final HashMap<String, Integer> WEIGHTS = new HashMap<>();
+    private static final Set<String> NEGATIONS = Set.of(
+            "not", "no", "never", "none", "nobody", "nothing", "neither", "nor", "without", "hardly", "barely",
+            "dont", "doesnt", "didnt", "isnt", "wasnt", "arent", "werent", "cant", "cannot", "couldnt", "wont",
+            "wouldnt", "shouldnt", "havent", "hasnt", "hadnt", "aint");
+    private static final Set<String> INTENSIFIERS = Set.of(
+            "very", "really", "so", "extremely", "incredibly", "super", "totally", "absolutely", "completely",
+            "truly", "deeply", "too", "quite", "especially", "utterly");
+    private static final int NEGATION_SCOPE = 3;  // words after a negation that get flipped
+    private static final double INTENSIFIER_BOOST = 1.5;
+    // how fast the score saturates, larger means more words are needed for a strong label
+    private static final double SATURATION = 30;
+
+    static {
+        weigh(3, "amazing", "awesome", "wonderful", "fantastic", "excellent", "outstanding", "brilliant",
+                "perfect", "love", "loved", "loving", "thrilled", "ecstatic", "overjoyed", "delighted", "blessed",
+                "incredible", "superb", "best", "joy", "joyful", "euphoric", "marvelous");
+        weigh(2, "happy", "glad", "great", "good", "nice", "fun", "enjoy", "enjoyed", "enjoying", "excited",
+                "exciting", "grateful", "thankful", "proud", "beautiful", "lovely", "cheerful", "pleased",
+                "relaxed", "relaxing", "peaceful", "smile", "smiled", "laugh", "laughed", "success", "successful",
+                "win", "won", "hope", "hopeful", "confident", "productive", "accomplished", "celebrate",
+                "celebrated", "friendly", "kind", "sweet", "like", "liked", "favorite", "motivated", "inspired");
+        weigh(1, "ok", "okay", "fine", "calm", "better", "interesting", "comfortable", "safe", "easy", "rest",
+                "rested", "sunny", "cool", "well", "satisfied", "content", "improve", "improved", "helpful",
+                "support", "supported", "progress", "finally");
+        weigh(-1, "tired", "bored", "boring", "meh", "busy", "late", "hard", "difficult", "confused", "worried",
+                "worry", "nervous", "unsure", "problem", "issue", "slow", "rain", "mess", "lazy", "sick", "cold",
+                "annoying", "annoyed", "overwhelmed", "pressure", "stuck", "lost", "miss", "missed", "alone");
+        weigh(-2, "sad", "bad", "upset", "angry", "mad", "stress", "stressed", "stressful", "anxious", "anxiety",
+                "lonely", "hurt", "pain", "painful", "cry", "cried", "crying", "fail", "failed", "failure",
+                "disappointed", "disappointing", "frustrated", "frustrating", "afraid", "scared", "fear", "hate",
+                "hated", "sorry", "regret", "unhappy", "exhausted", "worse", "fight", "fought", "broke", "broken",
+                "ill", "loss", "losing", "awkward", "embarrassed", "jealous", "guilty", "ugly");
+        weigh(-3, "terrible", "horrible", "awful", "worst", "miserable", "depressed", "depressing", "devastated",
+                "hopeless", "heartbroken", "furious", "disgusting", "disaster", "nightmare", "tragic", "grief",
+                "hopelessness", "suicidal", "despair", "dreadful", "panic", "died", "death");
+    }
+
+    private static void weigh(int weight, String... words) {
+        for (String word : words) WEIGHTS.put(word, weight);
+    }
+
+    @Override
+    public CompletableFuture<String> analyzeAsync(String text) {
+        return CompletableFuture.completedFuture(analyze(text));
+    }
+
+    /**
+     * Analyze many texts on a cpu thread, see {@link AppExecutors#cpu()}, so a large batch does not hold up the caller.
+     * Never runs on the calling thread, if the cpu threads are too busy the future fails with a
+     * RejectedExecutionException instead.
+     */
+    @Override
+    public CompletableFuture<List<String>> analyzeBatchAsync(List<String> texts) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                ArrayList<String> labels = new ArrayList<>(texts.size());
+                for (String text : texts) labels.add(analyze(text));
+                return labels;
+            }, AppExecutors.cpu());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Label the mood of a text right away.
+     * @return "Very Positive", "Positive", "Neutral", "Negative", or "Very Negative"
+     */
+    public String analyze(String text) {
+        return label(score(text));
+    }
+
+    /**
+     * Score the mood of a text.
+     * @return score between -1 (very negative) and 1 (very positive), 0 if no known word is found
+     */
+    public double score(String text) {
+        double sum = 0;
+        int negated = 0;  // words left to flip
+        double boost = 1;
+
+        int length = text.length();
+        int i = 0;
+        StringBuilder word = new StringBuilder();
+        while (i < length) {
+            // read one word, dropping apostrophes so "don't" and "dont" match
+            word.setLength(0);
+            while (i < length && !Character.isLetter(text.charAt(i))) {
+                char c = text.charAt(i++);
+                if (c == '.' || c == '!' || c == '?' || c == ',' || c == ';') negated = 0;  // negation ends with the clause
+            }
+            while (i < length && (Character.isLetter(text.charAt(i)) || text.charAt(i) == '\'' || text.charAt(i) == '\u2019')) {
+                char c = text.charAt(i++);
+                if (Character.isLetter(c)) word.append(Character.toLowerCase(c));
+            }
+            if (word.length() == 0) continue;
+
+            String token = word.toString();
+            if (NEGATIONS.contains(token)) {
+                negated = NEGATION_SCOPE;
+                continue;
+            }
+            if (INTENSIFIERS.contains(token)) {
+                boost = INTENSIFIER_BOOST;
+                continue;
+            }
+
+            Integer weight = WEIGHTS.get(token);
+            if (weight != null) {
+                double value = weight * boost;
+                sum += negated > 0 ? -value * 0.75 : value;  // "not good" is milder than "bad"
+            }
+            boost = 1;
+            if (negated > 0) negated--;
+        }
+        return sum / Math.sqrt(sum * sum + SATURATION);
+    }
+
+    /**
+     * Turn a score into one of the five labels.
+     */
+    public static String label(double score) {
+        if (score <= -0.7) return "Very Negative";
+        if (score < -0.15) return "Negative";
+        if (score <= 0.15) return "Neutral";
+        if (score < 0.7) return "Positive";
+        return "Very Positive";
+    }
+
+    /**
+     * Demonstrate the use of this class.
+     */
+    public static void main(String[] args) {
+        LexiconAnalyzer analyzer = new LexiconAnalyzer();
+        String[] texts = {
+                "I spent my free time with my friends today. We had a great time at the park and enjoyed the sunny weather.",
+                "my hair loss issue is getting worse...",
+                "Today was not good at all, I failed the exam and feel terrible.",
+                "Went to class, had lunch, came home.",
+                "I'm so happy, this is the best day ever!"
+        };
+        for (String text : texts) {
+            System.out.printf("%-14s %6.2f  %s%n", analyzer.analyze(text), analyzer.score(text), text);
+        }
+
+        long start = System.nanoTime();
+        int runs = 100_000;
+        for (int i = 0; i < runs; i++) analyzer.score(texts[i % texts.length]);
+        System.out.printf("%.2f microseconds per text%n", (System.nanoTime() - start) / 1000.0 / runs);
+    }
+}
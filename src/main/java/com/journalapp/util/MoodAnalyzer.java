@@ -1,45 +1,124 @@
 package main.java.com.journalapp.util;
 
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Analyze the mood of user given the content of journal entry.
+ * <p>
+ * Moods come from the in-process {@link LexiconAnalyzer}, the remote {@link HuggingFaceAnalyzer}, or both,
+ * depending on the {@link Policy}.
  */
 public class MoodAnalyzer {
+    /**
+     * Which analyzer answers.
+     */
+    public enum Policy {
+        LOCAL_ONLY,   // never goes over the network
+        REMOTE_ONLY,  // waits for the model, empty string if it cannot be reached
+        LOCAL_FIRST   // answers locally at once, the model refines it later, see MoodOutbox
+    }
+
+    private static final LexiconAnalyzer local = new LexiconAnalyzer();
+    private static final HuggingFaceAnalyzer remote = new HuggingFaceAnalyzer();
+    private static volatile Policy policy = readPolicy();
+
+    /**
+     * Read the policy from MOOD_POLICY in .env, e.g. "remote_only". Local first if it is not set, so saving
+     * never waits on the network and the model still has the last word.
+     */
+    private static Policy readPolicy() {
+        String value = Config.getString(Config.MOOD_POLICY, null);
+        if (value == null) return Policy.LOCAL_FIRST;
+        try {
+            return Policy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid mood policy for " + Config.MOOD_POLICY + " in .env: " + value);
+            return Policy.LOCAL_FIRST;
+        }
+    }
+
+    public static void setPolicy(Policy policy) {
+        MoodAnalyzer.policy = policy;
+    }
+
+    public static Policy getPolicy() {
+        return policy;
+    }
+
     /**
      * Analyze mood of user given the content of journal entry.
-     * @return string representing mood. valid responses: "Very Positive", "Positive", "Neutral", "Negative", "Very Negative" (either one)
-     * <p>
-     * This method uses <a href="https://huggingface.co/tabularisai/multilingual-sentiment-analysis">tabularisai/multilingual-sentiment-analysis model</a>
-     * to analyze the user's mood. Token is needed to send requests to the HuggingFace Inference API. Setup your token before calling this method. */
+     * @return string representing mood. valid responses: "Very Positive", "Positive", "Neutral", "Negative", "Very Negative" (either one),
+     * or empty string if the policy is REMOTE_ONLY and the model cannot be reached
+     */
     public static String analyze(String text) {
-        String response = "";
-        try {
-            // load token
-            Map<String, String> env = EnvLoader.loadEnv(".env");
-            String token = env.get("BEARER_TOKEN");
-
-            if (token == null || token.isEmpty()) {
-                System.err.println("ERROR: BEARER_TOKEN is not set in the environment. Aborting operation.");
-                throw new Exception("Token is not set in the environment.");
-            }
-
-            // send post request
-            String url = "https://router.huggingface.co/hf-inference/models/tabularisai/multilingual-sentiment-analysis";
-            String jsonBody = "{\"inputs\": \"" + text + "\"}";
-            response = new API().post(url, token, jsonBody);
-
-            Pattern pattern = Pattern.compile("\\[\\[\\{\"label\":\"([^\"]+)\"");
-            Matcher matcher = pattern.matcher(response);
-            if (matcher.find()) {
-                response = matcher.group(1);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+        return analyzeAsync(text).join();
+    }
+
+    /**
+     * Same as {@link #analyze(String)}, but does not wait for the response.
+     * Completes at once unless the policy is REMOTE_ONLY.
+     * @return future completed with the mood, or with an empty string if something goes wrong
+     */
+    public static CompletableFuture<String> analyzeAsync(String text) {
+        switch (policy) {
+            case LOCAL_ONLY:
+                return local.analyzeAsync(text);
+            case REMOTE_ONLY:
+                return remote.analyzeAsync(text);
+            default:
+                String cached = remote.getCached(text);  // the model answered this text before
+                return cached != null ? CompletableFuture.completedFuture(cached) : local.analyzeAsync(text);
         }
-        return response;
+    }
+
+    /**
+     * Return the mood that is available without waiting: from the local analyzer, or from the model if it
+     * answered this text before. This is the lookup that counts towards the cache hit rate when saving.
+     * @return the mood, or empty string if the policy is REMOTE_ONLY and the model has to be asked
+     */
+    public static String analyzeNow(String text) {
+        if (policy == Policy.LOCAL_ONLY) return local.analyze(text);
+        String cached = remote.getCached(text);
+        if (cached != null) return cached;
+        return policy == Policy.LOCAL_FIRST ? local.analyze(text) : "";
+    }
+
+    /**
+     * Check whether {@link #analyzeNow(String)} gives the final mood, or the model should still be asked.
+     */
+    public static boolean isFinal(String text) {
+        return policy == Policy.LOCAL_ONLY || remote.peekCached(text) != null;  // counted by analyzeNow already
+    }
+
+    /**
+     * Ask the model, or the local analyzer if the policy is LOCAL_ONLY. Used for moods deferred by {@link #analyzeNow(String)}.
+     * @return future completed with the mood, or with an empty string if the model cannot be reached
+     */
+    public static CompletableFuture<String> analyzeLaterAsync(String text) {
+        return policy == Policy.LOCAL_ONLY ? local.analyzeAsync(text) : remote.analyzeDeferredAsync(text);
+    }
+
+    /**
+     * Analyze with the local analyzer only, whatever the policy. Never fails.
+     */
+    public static String analyzeOffline(String text) {
+        return local.analyze(text);
+    }
+
+    /**
+     * Analyze many texts at once, e.g. to analyze saved entries again. Uses the model unless the policy is LOCAL_ONLY.
+     * @return future completed with one mood per text, in the same order
+     */
+    public static CompletableFuture<List<String>> analyzeBatchAsync(List<String> texts) {
+        return policy == Policy.LOCAL_ONLY ? local.analyzeBatchAsync(texts) : remote.analyzeBatchAsync(texts);
+    }
+
+    /**
+     * @return the cache of texts analyzed by the model, e.g. to read its hit rate
+     */
+    public static AnalysisCache getCache() {
+        return remote.getCache();
     }
 
     /**
@@ -0,0 +1,142 @@
+package main.java.com.journalapp.util;
+
+import main.java.com.journalapp.model.Entry;
+import main.java.com.journalapp.model.Mood;
+
+import java.util.HashSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue of entries whose mood the model still has to give, so saving never waits on the network.
+ * <p>
+ * An entry is saved with the mood at hand (or {@link Mood#PENDING}) and marked as provisional in the same
+ * record, see {@link Entry#isMoodProvisional()}. A background worker asks the model, retrying with growing
+ * delays while it cannot be reached, and patches the answer into the entry, which clears the mark.
+ * Entries still marked when the app closes, or crashes, are picked up again by the next outbox for the user.
+ */
+public class MoodOutbox {
+    private static final long FIRST_RETRY_MS = 2_000;
+    private static final long MAX_RETRY_MS = 10 * 60_000;
+    private static final int MAX_ATTEMPTS = 8;
+
+    private final UserEntries entries;
+    private final ScheduledExecutorService worker;
+
+    // both guarded by this
+    private final HashSet<String> queued = new HashSet<>();
+    private boolean closed = false;
+
+    public MoodOutbox(UserEntries entries) {
+        this.entries = entries;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mood-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (Entry entry : entries.listEntries()) {
+            if (entry.isMoodProvisional() || entry.getMoodValue() == Mood.PENDING) add(entry.getId());
+        }
+    }
+
+    /**
+     * Queue an entry to have its mood analyzed by the model. Call it after the entry is saved as provisional.
+     */
+    public synchronized void add(String id) {
+        if (closed || !queued.add(id)) return;  // already waiting, the worker reads the latest content anyway
+        run(() -> attempt(id, 1), 0);
+    }
+
+    /**
+     * @return number of entries waiting for their mood
+     */
+    public synchronized int size() {
+        return queued.size();
+    }
+
+    private void attempt(String id, int attempt) {
+        Entry entry;
+        synchronized (this) {
+            if (closed) return;
+            entry = entries.getEntry(id);
+        }
+        if (entry == null || !entry.isMoodProvisional()) {
+            finish(id, null);  // deleted or saved with a final mood meanwhile
+            return;
+        }
+
+        String content = entry.getContent();
+        MoodAnalyzer.analyzeLaterAsync(content).whenComplete((mood, e) -> {
+            synchronized (this) {
+                if (closed) return;  // the next outbox for the user picks the entry up again
+            }
+            Mood result = e == null ? Mood.parse(mood) : Mood.NONE;
+            if (result != Mood.NONE) {
+                entries.refineMood(id, content, result);
+                finish(id, content);
+            }
+            else if (attempt < MAX_ATTEMPTS) {
+                run(() -> attempt(id, attempt + 1), retryDelay(attempt));
+            }
+            else {
+                // give up on the model, but never leave an entry pending
+                Entry current = entries.getEntry(id);
+                if (current != null) {
+                    Mood fallback = current.getMoodValue() == Mood.PENDING
+                            ? Mood.parse(MoodAnalyzer.analyzeOffline(content)) : current.getMoodValue();
+                    entries.refineMood(id, content, fallback);
+                }
+                finish(id, content);
+            }
+        });
+    }
+
+    /**
+     * Double the delay after every failed attempt, with some jitter so retries do not bunch up.
+     */
+    private static long retryDelay(int attempt) {
+        long delay = Math.min(MAX_RETRY_MS, FIRST_RETRY_MS << Math.min(attempt - 1, 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * Take an entry off the queue, unless it was edited since it was analyzed and is still provisional.
+     * @param content the content that was analyzed, null if nothing was
+     */
+    private synchronized void finish(String id, String content) {
+        if (closed) return;
+        Entry entry = entries.getEntry(id);
+        if (entry != null && entry.isMoodProvisional() && !entry.getContent().equals(content)) {
+            run(() -> attempt(id, 1), 0);  // edited meanwhile, analyze the new content
+            return;
+        }
+        queued.remove(id);
+    }
+
+    /**
+     * Run a task on the worker, unless the outbox is closed.
+     */
+    private synchronized void run(Runnable task, long delayMs) {
+        if (closed) return;
+        try {
+            worker.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shut down meanwhile, nothing to do
+        }
+    }
+
+    /**
+     * Stop the worker. Answers that arrive later are dropped, and entries still provisional are picked up
+     * on the next login.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        worker.shutdownNow();
+    }
+}
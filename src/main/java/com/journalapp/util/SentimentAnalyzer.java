@@ -0,0 +1,33 @@
+package main.java.com.journalapp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Something that labels the mood of a text, see {@link MoodAnalyzer} for choosing one.
+ * <p>
+ * Labels are "Very Positive", "Positive", "Neutral", "Negative", or "Very Negative",
+ * or an empty string if the analysis failed.
+ */
+public interface SentimentAnalyzer {
+    /**
+     * Label the mood of a text.
+     * @return future completed with the label, or with an empty string if something goes wrong
+     */
+    CompletableFuture<String> analyzeAsync(String text);
+
+    /**
+     * Label the mood of many texts. Sends one text at a time unless the analyzer can do better.
+     * @return future completed with one label per text, in the same order
+     */
+    default CompletableFuture<List<String>> analyzeBatchAsync(List<String> texts) {
+        ArrayList<CompletableFuture<String>> labels = new ArrayList<>(texts.size());
+        for (String text : texts) labels.add(analyzeAsync(text));
+        return CompletableFuture.allOf(labels.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            ArrayList<String> result = new ArrayList<>(labels.size());
+            for (CompletableFuture<String> label : labels) result.add(label.join());
+            return result;
+        });
+    }
+}
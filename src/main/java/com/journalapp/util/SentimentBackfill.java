@@ -0,0 +1,189 @@
+package main.java.com.journalapp.util;
+
+import main.java.com.journalapp.model.Entry;
+import main.java.com.journalapp.model.Mood;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Background job that analyzes the mood of existing entries again, e.g. after switching models or for
+ * entries saved with the "Neutral" fallback while the analyzer was unreachable.
+ * <p>
+ * Entries are sent in batches, with a limited number of requests in flight. Every analyzed batch is
+ * recorded in a checkpoint file, so an interrupted job resumes where it stopped. The moods are only
+ * written to the entries at the end, all in one go. Each mood is kept with a hash of the content it was
+ * analyzed from, and entries edited meanwhile keep the mood they were saved with.
+ */
+public class SentimentBackfill {
+    /**
+     * Which entries are analyzed again.
+     */
+    public enum Scope {
+        FALLBACK_ONLY,  // entries without a mood or with the "Neutral" fallback
+        ALL
+    }
+
+    private static final int DEFAULT_BATCH_SIZE = 16;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 2;
+
+    private final UserEntries entries;
+    private final Scope scope;
+    private final String checkpointPath;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private volatile boolean cancelled = false;
+
+    public SentimentBackfill(UserEntries entries, Scope scope) {
+        this.entries = entries;
+        this.scope = scope;
+        this.checkpointPath = entries.getBackfillPath();
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Stop sending batches. Batches already analyzed stay in the checkpoint for the next run.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Run the job in the background, on an io thread, see {@link AppExecutors#io()}.
+     * @return future completed with the number of entries whose mood changed
+     */
+    public CompletableFuture<Integer> start() {
+        return CompletableFuture.supplyAsync(this::run, AppExecutors.io());
+    }
+
+    /**
+     * Run the job on the calling thread, blocking until every batch is answered.
+     * @return number of entries whose mood changed, or 0 if cancelled
+     */
+    public int run() {
+        LinkedHashMap<String, Mood> moods = new LinkedHashMap<>();
+        HashMap<String, Long> contentHashes = new HashMap<>();  // of the analyzed content, both guarded by moods
+        readCheckpoint(moods, contentHashes);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ArrayList<CompletableFuture<Void>> requests = new ArrayList<>();
+
+        ArrayList<Entry> batch = new ArrayList<>();
+        for (Entry entry : entries.listEntries()) {  // a snapshot, the user can keep writing meanwhile
+            if (cancelled) break;
+            if (isAnalyzed(entry, contentHashes) || !isSelected(entry)) continue;
+            batch.add(entry);
+            if (batch.size() == batchSize) {
+                requests.add(send(batch, inFlight, moods, contentHashes));
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty() && !cancelled) requests.add(send(batch, inFlight, moods, contentHashes));
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).join();
+        if (cancelled) return 0;
+
+        int changed;
+        synchronized (moods) {
+            changed = entries.refineMoods(moods, contentHashes);  // skips entries edited since they were analyzed
+        }
+        entries.flush();
+        try {
+            Files.deleteIfExists(Paths.get(checkpointPath));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return changed;
+    }
+
+    /**
+     * Check whether an earlier run analyzed the entry as it is now, edited entries are analyzed again.
+     */
+    private static boolean isAnalyzed(Entry entry, HashMap<String, Long> contentHashes) {
+        Long analyzed = contentHashes.get(entry.getId());
+        return analyzed != null && analyzed == UserEntries.contentHash(entry.getContent());
+    }
+
+    private boolean isSelected(Entry entry) {
+        Mood mood = entry.getMoodValue();
+        return scope == Scope.ALL || mood == Mood.NONE || mood == Mood.NEUTRAL;
+    }
+
+    /**
+     * Send one batch once fewer than maxInFlight requests are running.
+     */
+    private CompletableFuture<Void> send(List<Entry> batch, Semaphore inFlight, LinkedHashMap<String, Mood> moods,
+                                         HashMap<String, Long> contentHashes) {
+        inFlight.acquireUninterruptibly();
+        ArrayList<String> texts = new ArrayList<>(batch.size());
+        for (Entry entry : batch) texts.add(entry.getContent());
+
+        return MoodAnalyzer.analyzeBatchAsync(texts)
+                .thenAccept(labels -> checkpoint(batch, labels, moods, contentHashes))
+                .exceptionally(e -> {
+                    e.printStackTrace();  // e.g. the cpu threads were too busy, the batch is left for the next run
+                    return null;
+                })
+                .whenComplete((ignored, e) -> inFlight.release());
+    }
+
+    /**
+     * Record the moods of an answered batch. Failed analyses (empty labels) are left for the next run.
+     */
+    private void checkpoint(List<Entry> batch, List<String> labels, LinkedHashMap<String, Mood> moods,
+                            HashMap<String, Long> contentHashes) {
+        StringBuilder lines = new StringBuilder();
+        synchronized (moods) {
+            for (int i = 0; i < batch.size(); i++) {
+                Mood mood = Mood.parse(labels.get(i));
+                if (mood == Mood.NONE) continue;
+                String id = batch.get(i).getId();
+                long hash = UserEntries.contentHash(batch.get(i).getContent());
+                moods.put(id, mood);
+                contentHashes.put(id, hash);
+                lines.append(id).append(',').append(mood.getCode()).append(',').append(Long.toHexString(hash)).append('\n');
+            }
+            if (lines.length() == 0) return;
+
+            try (FileWriter writer = new FileWriter(checkpointPath, true)) {
+                writer.write(lines.toString());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Read the moods recorded by an earlier, unfinished run, as lines of "id,mood code,content hash".
+     */
+    private void readCheckpoint(LinkedHashMap<String, Mood> moods, HashMap<String, Long> contentHashes) {
+        if (!Files.exists(Paths.get(checkpointPath))) return;
+        try (CsvReader reader = new CsvReader(checkpointPath)) {
+            String[] row;
+            while ((row = reader.readRow()) != null) {
+                // skips a line cut short by a crash, and lines without a hash, those entries are analyzed again
+                if (row.length != 3 || Mood.parse(row[1]) == Mood.NONE) continue;
+                try {
+                    contentHashes.put(row[0], Long.parseUnsignedLong(row[2], 16));
+                    moods.put(row[0], Mood.parse(row[1]));
+                } catch (NumberFormatException e) {
+                    // cut short inside the hash
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -5,7 +5,9 @@ import main.java.com.journalapp.model.User;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Represent a user session.
@@ -14,6 +16,7 @@ public final class Session {
     private Session() {}
 
     private static User currentUser = null;
+    private static MoodOutbox moodOutbox = null;  // of the current user
 
     /**
      * Check if there is user logged in currently.
@@ -28,15 +31,11 @@ public final class Session {
      * @return true if signup success. false if user already exists
      */
     public static boolean signup(String username,  String email, String password) {
-        ArrayList<User> userList = UserList.read();
-        for (User user : userList) {
-            if (user.getEmail().equals(email))  // one account per email
-                return false;
-        }
         User user = new User(UUID.randomUUID().toString(), username, email, password, null);
+        if (!UserList.add(user))  // one account per email
+            return false;
         currentUser = user;
-        userList.add(user);
-        UserList.write(userList);  // update user list data
+        moodOutbox = new MoodOutbox(user.getEntries());
         return true;
     }
 
@@ -49,21 +48,25 @@ public final class Session {
      * @return true if login success. false if otherwise
      */
     public static boolean login(String email, String password) {
-        ArrayList<User> users = UserList.read();
-        for (User user : users) {
-            if (user.getEmail().equals(email) && user.getPassword().equals(password)) {
-                currentUser = user;
-                return true;
-            }
+        User user = UserList.findByEmail(email);
+        if (user != null && user.getPassword().equals(password)) {
+            currentUser = user;
+            moodOutbox = new MoodOutbox(user.getEntries());  // resumes moods left pending last time
+            return true;
         }
         return false;
     }
 
     /**
-     * Log out current user/remove active user.
+     * Log out current user/remove active user. Also call this on shutdown, it saves pending changes.
      */
     public static void logout() {
+        if (currentUser != null) {
+            moodOutbox.close();
+            currentUser.getEntries().flush();  // make sure queued changes reach the disk
+        }
         currentUser = null;
+        moodOutbox = null;
     }
 
     /**
@@ -92,21 +95,93 @@ public final class Session {
 
     /**
      * Return list of existing journal entries saved previously for the current logged user.
-     * @return ArrayList containing Entry objects representing individual entries
+     * <p>
+     * The list is an immutable snapshot, safe to read from any thread. To show it in another order,
+     * sort a copy or iterate it backwards instead of reordering it.
+     * @return List containing Entry objects representing individual entries
      */
-    public static ArrayList<Entry> listEntries() {
+    public static List<Entry> listEntries() {
         return hasActiveUser() ? currentUser.getEntries().listEntries() : null;
     }
 
+    /**
+     * Return the number of journal entries of the current logged user.
+     * @return number of entries, or 0 if nobody is logged in
+     */
+    public static int countEntries() {
+        return hasActiveUser() ? currentUser.getEntries().countEntries() : 0;
+    }
+
+    /**
+     * Return the entries of the current logged user dated between the given dates (both inclusive), oldest first.
+     * @return ArrayList containing Entry objects, or null if nobody is logged in
+     */
+    public static ArrayList<Entry> entriesBetween(LocalDate from, LocalDate to) {
+        return hasActiveUser() ? currentUser.getEntries().entriesBetween(from, to) : null;
+    }
+
+    /**
+     * Return the entry of the current logged user for the given date.
+     * @return the first entry written for that date, or null if there is none
+     */
+    public static Entry entryOn(LocalDate date) {
+        return hasActiveUser() ? currentUser.getEntries().entryOn(date) : null;
+    }
+
+    /**
+     * Return the n most recent entries of the current logged user, newest first.
+     * @return ArrayList containing at most n Entry objects, or null if nobody is logged in
+     */
+    public static ArrayList<Entry> latest(int n) {
+        return hasActiveUser() ? currentUser.getEntries().latest(n) : null;
+    }
+
+    /**
+     * Return a column-oriented copy of the current logged user's entries, for statistics over the whole history.
+     * @return EntryColumns sorted by date, or null if nobody is logged in
+     */
+    public static EntryColumns entryColumns() {
+        return hasActiveUser() ? currentUser.getEntries().columns() : null;
+    }
+
+    /**
+     * Return the statistics of the current logged user's entries, kept up to date on every change.
+     * @return EntryStats, or null if nobody is logged in
+     */
+    public static EntryStats entryStats() {
+        return hasActiveUser() ? currentUser.getEntries().stats() : null;
+    }
+
+    /**
+     * Return the years in which the current logged user wrote at least one entry, in ascending order.
+     * @return ArrayList of years, or null if nobody is logged in
+     */
+    public static ArrayList<Integer> listEntryYears() {
+        return hasActiveUser() ? currentUser.getEntries().listYears() : null;
+    }
+
     /**
      * Create and save entry for the current logged user.
      * @param date the date for this entry. type of LocalDate
      * @param content string of content for this entry
      * @param mood "Very Positive", "Positive", "Neutral", "Negative", or "Very Negative". hint: call MoodAnalyzer.analyze(content)
      * @param weather "Sunny", "Rainy", "Hazy", or "Thunderstorms". hint: call Weather.getCurrentWeather
+     * @return the new entry
      */
-    public static void createEntry(LocalDate date, String content, String mood, String weather) {
-        currentUser.getEntries().createEntry(date, content, mood, weather);
+    public static Entry createEntry(LocalDate date, String content, String mood, String weather) {
+        return currentUser.getEntries().createEntry(date, content, mood, weather);
+    }
+
+    /**
+     * Same as {@link #createEntry(LocalDate, String, String, String)}, for a mood that is only a first guess.
+     * The entry is saved marked as provisional and the model analyzes it in the background, see {@link MoodOutbox}.
+     * The mark is written with the entry, so the model is still asked if the app closes first.
+     * @param mood the mood from MoodAnalyzer.analyzeNow, or "Pending"
+     */
+    public static Entry createEntryAnalyzingLater(LocalDate date, String content, String mood, String weather) {
+        Entry entry = currentUser.getEntries().createEntry(date, content, mood, weather, true);
+        moodOutbox.add(entry.getId());
+        return entry;
     }
 
     /**
@@ -129,6 +204,24 @@ public final class Session {
         currentUser.getEntries().editEntry(id, date, content, mood, weather);
     }
 
+    /**
+     * Same as {@link #editEntry(String, LocalDate, String, String, String)}, for a mood that is only a first guess,
+     * see {@link #createEntryAnalyzingLater(LocalDate, String, String, String)}.
+     */
+    public static void editEntryAnalyzingLater(String id, LocalDate date, String content, String mood, String weather) {
+        currentUser.getEntries().editEntry(id, date, content, mood, weather, true);
+        moodOutbox.add(id);
+    }
+
+    /**
+     * Analyze the mood of the current logged user's entries again in the background, see {@link SentimentBackfill}.
+     * @param scope which entries to analyze
+     * @return future completed with the number of entries whose mood changed, or null if nobody is logged in
+     */
+    public static CompletableFuture<Integer> backfillMoods(SentimentBackfill.Scope scope) {
+        return hasActiveUser() ? new SentimentBackfill(currentUser.getEntries(), scope).start() : null;
+    }
+
     /**
      * Demonstrate the use of this class.
      */
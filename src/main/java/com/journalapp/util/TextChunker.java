@@ -0,0 +1,61 @@
+package main.java.com.journalapp.util;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits long texts into chunks at sentence boundaries, so each chunk fits a model's input limit.
+ */
+public class TextChunker {
+    /**
+     * Split a text into chunks of whole sentences, each at most maxChars long.
+     * Sentences longer than that are split between words, or anywhere if a single word is too long.
+     * @return the chunks in order, a single chunk if the text is short enough
+     */
+    public static List<String> split(String text, int maxChars) {
+        ArrayList<String> chunks = new ArrayList<>();
+        if (text.length() <= maxChars) {
+            chunks.add(text);
+            return chunks;
+        }
+
+        BreakIterator sentences = BreakIterator.getSentenceInstance(Locale.ROOT);
+        sentences.setText(text);
+        StringBuilder chunk = new StringBuilder();
+        int start = sentences.first();
+        for (int end = sentences.next(); end != BreakIterator.DONE; start = end, end = sentences.next()) {
+            String sentence = text.substring(start, end);
+            if (chunk.length() + sentence.length() > maxChars) {
+                addChunk(chunks, chunk);
+                while (sentence.length() > maxChars) {
+                    int cut = sentence.lastIndexOf(' ', maxChars);
+                    if (cut <= 0) cut = maxChars;
+                    chunks.add(sentence.substring(0, cut).strip());
+                    sentence = sentence.substring(cut);
+                }
+            }
+            chunk.append(sentence);
+        }
+        addChunk(chunks, chunk);
+        return chunks;
+    }
+
+    private static void addChunk(List<String> chunks, StringBuilder chunk) {
+        String text = chunk.toString().strip();
+        if (!text.isEmpty()) chunks.add(text);
+        chunk.setLength(0);
+    }
+
+    /**
+     * Demonstrate the use of this class.
+     */
+    public static void main(String[] args) {
+        String text = "I woke up late. The bus was gone, so I walked to class in the rain! "
+                + "Lunch with friends made it better. Tomorrow should be calmer?";
+        for (String chunk : split(text, 40)) {
+            System.out.println(chunk.length() + ": " + chunk);
+        }
+    }
+}
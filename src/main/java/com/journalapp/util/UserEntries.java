@@ -1,28 +1,83 @@
 package main.java.com.journalapp.util;
 
 import main.java.com.journalapp.model.Entry;
+import main.java.com.journalapp.model.Mood;
+import main.java.com.journalapp.model.WeatherCondition;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Handles entry read and write operations.
+ * <p>
+ * Entries are stored log-structured: {@code <id>.csv} is the base file, and every mutation after it
+ * is appended to {@code <id>.log} as a single create, edit or delete record. Loading replays the log
+ * on top of the base file. Once too many records on disk are dead (overwritten or deleted), the log
+ * is folded into a fresh base file in the background.
+ * <p>
+ * Mutations only update memory and queue their record on an {@link EntryWriter}, which writes it
+ * behind the caller's back. Call {@link #flush()} to make sure everything has reached the disk.
  */
 public class UserEntries {
     private static final String ENTRY_FOLDER = "./data/entries/";
     private static final String HEADER = "id,date,content,mood,weather\n";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String COMPACTING_SUFFIX = ".log.compacting";
+    private static final String BACKFILL_SUFFIX = ".backfill";
 
+    // log record types
+    private static final String CREATE = "C";
+    private static final String EDIT = "E";
+    private static final String DELETE = "D";
+
+    // compact once more than half of the records on disk are dead
+    private static final double COMPACTION_THRESHOLD = 0.5;
+    private static final int COMPACTION_MIN_RECORDS = 64;
+
+    private final String id;
     private final String path;
-    private final ArrayList<Entry> entries = new ArrayList<>();
+    private final String logPath;
+    private final String compactingPath;
+    private final String backfillPath;
+    private final EntryWriter writer;
+    // keyed by entry id, iterates in insertion order
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    // immutable copy of the entries handed out to readers, null after a change until someone asks again
+    private volatile List<Entry> snapshot = List.of();
+    // analytics copy of the entries, null after a change until someone asks again
+    private volatile EntryColumns columns = null;
+    // entries grouped by date, each day in insertion order
+    private final TreeMap<LocalDate, ArrayList<Entry>> entriesByDate = new TreeMap<>();
+    private final CopyOnWriteArrayList<EntryListener> listeners = new CopyOnWriteArrayList<>();
+    private final EntryStats stats;
+
+    // number of records in the base file, the log being compacted, and the current log
+    private int baseRecords = 0;
+    private int compactingRecords = 0;
+    private int logRecords = 0;
+    private boolean compacting = false;
 
     public UserEntries(String id) {
+        this.id = id;
         this.path = ENTRY_FOLDER + id + ".csv";
+        this.logPath = ENTRY_FOLDER + id + LOG_SUFFIX;
+        this.compactingPath = ENTRY_FOLDER + id + COMPACTING_SUFFIX;
+        this.backfillPath = ENTRY_FOLDER + id + BACKFILL_SUFFIX;
+        this.writer = new EntryWriter(logPath, id);
 
         if (!Files.exists(Paths.get(path))) {
             createEntriesFile();
@@ -30,6 +85,17 @@ public class UserEntries {
         else {
             loadEntriesFromFile();
         }
+        // a crash during compaction leaves the rotated log behind, replaying it again is harmless
+        compactingRecords = replayLog(compactingPath);
+        truncateTornRecord(logPath);  // new records are appended to this one
+        logRecords = replayLog(logPath);
+
+        for (Entry entry : entries.values()) {
+            addToDateIndex(entry);
+        }
+        snapshot = List.copyOf(entries.values());
+        stats = new EntryStats(this, entriesByDate, columns());
+        listeners.add(stats);
     }
 
     private void createEntriesFile() {
@@ -41,75 +107,463 @@ public class UserEntries {
         }
     }
 
-    private void saveEntriesToFile() {
-        try (FileWriter writer = new FileWriter(path, false)) {
+    private static void writeBaseFile(String path, List<Entry> entries) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(path, false);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out))) {
             writer.write(HEADER);
             for (Entry entry : entries) {
                 writer.write(entry.toString() + "\n");
             }
+            writer.flush();
+            if (EntryWriter.getFsyncPolicy() != EntryWriter.FsyncPolicy.NEVER) out.getFD().sync();
+        }
+    }
+
+    private void loadEntriesFromFile() {
+        try (CsvReader reader = new CsvReader(path)) {
+            String[] row;
+            reader.readRow();  // discard header
+            while ((row = reader.readRow()) != null) {
+                if (row.length != 5 && row.length != 6) continue;  // skip malformed rows
+
+                Entry entry = parseEntry(row, 0);
+                this.entries.put(entry.getId(), entry);
+                baseRecords++;
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private void loadEntriesFromFile() {
-        Pattern pattern = Pattern.compile("\"([^\"]*)\",\"([^\"]*)\",\"([^\"]*)\",\"([^\"]*)\",\"([^\"]*)\"");
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
-            String line;
-            reader.readLine();  // discard header
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher = pattern.matcher(line);
-
-                // handle multiline content
-                while (!matcher.matches()) {
-                    line += "\n" + reader.readLine();
-                    matcher = pattern.matcher(line);
+    /**
+     * Read an entry from its columns: id, date, content, mood, weather, and "1" if the mood is provisional.
+     * @param from index of the id column
+     */
+    private static Entry parseEntry(String[] row, int from) {
+        Entry entry = new Entry(row[from], row[from + 1], row[from + 2], row[from + 3], row[from + 4]);
+        boolean provisional = row.length > from + 5 && row[from + 5].equals("1");
+        return provisional ? entry.withMood(entry.getMoodValue(), true) : entry;
+    }
+
+    /**
+     * Apply every record of the given log file to the in-memory entries.
+     * Records carry the full entry, so replaying a record twice gives the same result.
+     * @return number of records read
+     */
+    private int replayLog(String logPath) {
+        if (!Files.exists(Paths.get(logPath))) return 0;
+
+        int count = 0;
+        try (CsvReader reader = new CsvReader(logPath)) {
+            String[] row;
+            while ((row = reader.readRow()) != null) {
+                boolean delete = row.length == 2 && row[0].equals(DELETE);
+                boolean upsert = (row.length == 6 || row.length == 7) && (row[0].equals(CREATE) || row[0].equals(EDIT));
+                if (!delete && !upsert) continue;  // torn or malformed record
+
+                String id = row[1];
+                if (delete) {
+                    entries.remove(id);
                 }
+                else {
+                    entries.put(id, parseEntry(row, 1));  // an edit keeps its position
+                }
+                count++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return count;
+    }
+
+    /**
+     * Cut off a record that a crash left half written at the end of the log. Otherwise the next record
+     * would be appended right after it, merge with it, and be lost on the next load.
+     * <p>
+     * Scans bytes rather than chars: quotes, commas and line breaks are single bytes that never occur
+     * inside a multi-byte character, so record boundaries are found without decoding.
+     */
+    private static void truncateTornRecord(String logPath) {
+        Path log = Paths.get(logPath);
+        if (!Files.exists(log)) return;
 
-                Entry entry = new Entry(matcher.group(1),
-                        matcher.group(2),
-                        matcher.group(3),
-                        matcher.group(4),
-                        matcher.group(5));
-                this.entries.add(entry);
+        long complete = 0;  // length of the complete records
+        try (InputStream in = new FileInputStream(logPath)) {
+            byte[] buffer = new byte[64 * 1024];
+            boolean quoted = false;
+            long position = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '"') quoted = !quoted;  // a doubled quote flips twice
+                    else if (buffer[i] == '\n' && !quoted) complete = position + i + 1;
+                }
+                position += n;
             }
+            if (complete == position) return;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(complete);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    public ArrayList<Entry> listEntries() {
-        return this.entries;
+    /**
+     * Queue a single record for the log, then compact if enough records have gone dead.
+     */
+    private void appendRecord(String type, Entry entry) {
+        appendRecords(type, List.of(entry));
     }
 
-    public void createEntry(LocalDate date, String content, String mood, String weather) {
-        String id = UUID.randomUUID().toString();
-        Entry entry = new Entry(id, date, content, mood, weather);
-        entries.add(entry);
-        saveEntriesToFile();
+    /**
+     * Queue records of the same type for the log as one write, then compact if enough records have gone dead.
+     */
+    private void appendRecords(String type, List<Entry> batch) {
+        final String quote = "\"";
+        final String comma = ",";
+        StringBuilder records = new StringBuilder();
+        for (Entry entry : batch) {
+            if (records.length() > 0) records.append('\n');
+            records.append(quote).append(type).append(quote).append(comma);
+            if (type.equals(DELETE)) records.append(quote).append(entry.getId()).append(quote);
+            else records.append(entry);
+        }
+
+        snapshot = null;  // rebuilt by the next reader
+        columns = null;
+        writer.append(records.toString());
+        logRecords += batch.size();
+        compactIfNeeded();
+    }
+
+    private void compactIfNeeded() {
+        int total = baseRecords + compactingRecords + logRecords;
+        int dead = total - entries.size();
+        if (compacting || total < COMPACTION_MIN_RECORDS || dead <= total * COMPACTION_THRESHOLD) return;
+
+        // the snapshot holds exactly the records queued so far, so the writer compacts right after writing them
+        compacting = true;
+        compactingRecords += logRecords;
+        logRecords = 0;
+
+        List<Entry> current = snapshot != null ? snapshot : List.copyOf(entries.values());
+        snapshot = current;
+        writer.runAfterPending(() -> compact(current));
     }
 
-    public void deleteEntry(String id) {
-        for (Entry entry : entries) {
-            if (entry.getId().equals(id)) {
-                entries.remove(entry);
-                saveEntriesToFile();
-                return;
+    /**
+     * Fold the base file and the log into a fresh base file. Runs on the writer thread.
+     */
+    private void compact(List<Entry> snapshot) {
+        Path rotated = Paths.get(compactingPath);
+        Path tmp = Paths.get(path + ".tmp");
+        boolean done = false;
+        try {
+            // rotate the log so records queued from now on go to a fresh file.
+            // if a rotated log is still around from a failed compaction, keep the current log instead,
+            // its records end up in the new base too and replaying them again is harmless
+            if (!Files.exists(rotated) && Files.exists(Paths.get(logPath))) {
+                Files.move(Paths.get(logPath), rotated);
             }
+            writeBaseFile(tmp.toString(), snapshot);
+            Files.move(tmp, Paths.get(path), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(Paths.get(compactingPath));
+            done = true;
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+
+        synchronized (this) {
+            if (done) {
+                baseRecords = snapshot.size();
+                compactingRecords = 0;
+            }
+            compacting = false;
+        }
+    }
+
+    private void addToDateIndex(Entry entry) {
+        entriesByDate.computeIfAbsent(entry.getDate(), d -> new ArrayList<>(1)).add(entry);
     }
 
-    public void editEntry(String id, LocalDate date, String content, String mood, String weather) {
-        for (Entry entry : entries) {
-            if (entry.getId().equals(id)) {
-                entry.setDate(date);
-                entry.setContent(content);
-                entry.setMood(mood);
-                entry.setWeather(weather);
-                saveEntriesToFile();
-                return;
+    private void removeFromDateIndex(Entry entry) {
+        ArrayList<Entry> day = entriesByDate.get(entry.getDate());
+        if (day == null) return;
+        day.remove(entry);
+        if (day.isEmpty()) entriesByDate.remove(entry.getDate());
+    }
+
+    /**
+     * Return all entries in insertion order.
+     * <p>
+     * The list is an immutable snapshot shared by every caller, safe to iterate on any thread without locking.
+     * It does not change when entries are modified later, ask for a new one instead.
+     * The snapshot is rebuilt at most once per change, on the first call after it.
+     */
+    public List<Entry> listEntries() {
+        List<Entry> current = snapshot;
+        if (current != null) return current;
+        synchronized (this) {
+            if (snapshot == null) snapshot = List.copyOf(entries.values());
+            return snapshot;
+        }
+    }
+
+    /**
+     * Return a column-oriented copy of the entries for analytics, sorted by date.
+     * Like {@link #listEntries()} it is immutable and rebuilt at most once per change.
+     */
+    public EntryColumns columns() {
+        EntryColumns current = columns;
+        if (current != null) return current;
+        synchronized (this) {
+            if (columns == null) columns = new EntryColumns(entriesByDate.values(), entries.size());
+            return columns;
+        }
+    }
+
+    /**
+     * Return the statistics of these entries, kept up to date on every change.
+     */
+    public EntryStats stats() {
+        return stats;
+    }
+
+    /**
+     * Register a listener for created, edited and deleted entries.
+     */
+    public void addListener(EntryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(EntryListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireAdded(Entry entry) {
+        for (EntryListener listener : listeners) listener.entryAdded(entry);
+    }
+
+    private void fireRemoved(Entry entry) {
+        for (EntryListener listener : listeners) listener.entryRemoved(entry);
+    }
+
+    public synchronized int countEntries() {
+        return entries.size();
+    }
+
+    /**
+     * Return the entries dated within the given range, oldest first.
+     * @param from first date, inclusive
+     * @param to last date, inclusive
+     */
+    public synchronized ArrayList<Entry> entriesBetween(LocalDate from, LocalDate to) {
+        ArrayList<Entry> result = new ArrayList<>();
+        if (from.isAfter(to)) return result;
+        for (ArrayList<Entry> day : entriesByDate.subMap(from, true, to, true).values()) {
+            result.addAll(day);
+        }
+        return result;
+    }
+
+    /**
+     * Return the entry with the given id, or null if there is none.
+     */
+    public synchronized Entry getEntry(String id) {
+        return entries.get(id);
+    }
+
+    /**
+     * Return the first entry written for the given date, or null if there is none.
+     */
+    public synchronized Entry entryOn(LocalDate date) {
+        ArrayList<Entry> day = entriesByDate.get(date);
+        return day == null ? null : day.get(0);
+    }
+
+    /**
+     * Return the n most recent entries by date, newest first.
+     */
+    public synchronized ArrayList<Entry> latest(int n) {
+        ArrayList<Entry> result = new ArrayList<>(Math.min(n, entries.size()));
+        for (ArrayList<Entry> day : entriesByDate.descendingMap().values()) {
+            for (int i = day.size() - 1; i >= 0; i--) {
+                if (result.size() == n) return result;
+                result.add(day.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the years that have at least one entry, in ascending order.
+     */
+    public synchronized ArrayList<Integer> listYears() {
+        ArrayList<Integer> years = new ArrayList<>();
+        LocalDate date = entriesByDate.isEmpty() ? null : entriesByDate.firstKey();
+        while (date != null) {
+            years.add(date.getYear());
+            date = entriesByDate.ceilingKey(LocalDate.of(date.getYear() + 1, 1, 1));
+        }
+        return years;
+    }
+
+    public synchronized Entry createEntry(LocalDate date, String content, String mood, String weather) {
+        return createEntry(date, content, mood, weather, false);
+    }
+
+    /**
+     * @param provisional true if the mood is a first guess the model still has to confirm, see {@link MoodOutbox}.
+     *                    Saved in the same record as the entry, so it survives a crash right after saving
+     */
+    public synchronized Entry createEntry(LocalDate date, String content, String mood, String weather, boolean provisional) {
+        String id = UUID.randomUUID().toString();
+        Entry entry = new Entry(id, date, content, Mood.parse(mood), WeatherCondition.parse(weather), provisional);
+        entries.put(id, entry);
+        addToDateIndex(entry);
+        fireAdded(entry);
+        appendRecord(CREATE, entry);
+        return entry;
+    }
+
+    public synchronized void deleteEntry(String id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            removeFromDateIndex(entry);
+            fireRemoved(entry);
+            appendRecord(DELETE, entry);
+        }
+    }
+
+    public synchronized void editEntry(String id, LocalDate date, String content, String mood, String weather) {
+        editEntry(id, date, content, mood, weather, false);
+    }
+
+    /**
+     * @param provisional true if the mood is a first guess the model still has to confirm, see {@link MoodOutbox}
+     */
+    public synchronized void editEntry(String id, LocalDate date, String content, String mood, String weather,
+                                       boolean provisional) {
+        Entry old = entries.get(id);
+        if (old != null) {
+            // replace rather than modify, the writer thread may still be reading the old one
+            Entry entry = new Entry(id, date, content, Mood.parse(mood), WeatherCondition.parse(weather), provisional);
+            removeFromDateIndex(old);
+            entries.put(id, entry);
+            addToDateIndex(entry);
+            fireRemoved(old);
+            fireAdded(entry);
+            appendRecord(EDIT, entry);
+        }
+    }
+
+    /**
+     * Change the mood of many entries at once, logged as a single write, unless their content changed since
+     * the mood was analyzed. Used by {@link SentimentBackfill}.
+     * @param moods new mood by entry id, ids of deleted entries are skipped
+     * @param contentHashes {@link #contentHash(String)} of the analyzed content by entry id
+     * @return number of entries whose mood changed
+     */
+    public synchronized int refineMoods(Map<String, Mood> moods, Map<String, Long> contentHashes) {
+        HashMap<String, Mood> current = new HashMap<>();
+        for (Map.Entry<String, Mood> update : moods.entrySet()) {
+            Entry entry = entries.get(update.getKey());
+            Long analyzed = contentHashes.get(update.getKey());
+            if (entry != null && analyzed != null && analyzed == contentHash(entry.getContent())) {
+                current.put(update.getKey(), update.getValue());
             }
         }
+        return updateMoods(current);
+    }
+
+    /**
+     * Hash of an entry's content, to tell later whether the content is still the one that was analyzed.
+     * 64-bit FNV-1a, short enough to keep next to every mood in a checkpoint.
+     */
+    static long contentHash(String content) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < content.length(); i++) {
+            hash ^= content.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Change the mood of many entries at once and mark them final, logged as a single write.
+     * @param moods new mood by entry id, ids of deleted entries are skipped
+     * @return number of entries whose mood changed or became final
+     */
+    private int updateMoods(Map<String, Mood> moods) {
+        ArrayList<Entry> changed = new ArrayList<>();
+        for (Map.Entry<String, Mood> update : moods.entrySet()) {
+            Entry old = entries.get(update.getKey());
+            if (old == null || old.getMoodValue() == update.getValue() && !old.isMoodProvisional()) continue;
+
+            Entry entry = old.withMood(update.getValue(), false);  // the mood is final now
+            removeFromDateIndex(old);
+            entries.put(entry.getId(), entry);
+            addToDateIndex(entry);
+            fireRemoved(old);
+            fireAdded(entry);
+            changed.add(entry);
+        }
+        if (!changed.isEmpty()) appendRecords(EDIT, changed);
+        return changed.size();
+    }
+
+    /**
+     * Change the mood of an entry and mark it final, unless its content changed since the mood was analyzed.
+     * Used when a better mood arrives after the entry was saved.
+     * @return true if the mood changed or became final
+     */
+    public synchronized boolean refineMood(String id, String analyzedContent, Mood mood) {
+        Entry entry = entries.get(id);
+        if (entry == null || !entry.getContent().equals(analyzedContent)) return false;
+        return updateMoods(Map.of(id, mood)) == 1;
+    }
+
+    /**
+     * Return the file where a {@link SentimentBackfill} of these entries keeps its progress.
+     */
+    String getBackfillPath() {
+        return backfillPath;
+    }
+
+    /**
+     * Write every queued change to disk. Blocks until done, use on logout and shutdown.
+     */
+    public void flush() {
+        writer.flush();  // not synchronized, compaction on the writer thread needs this lock
+    }
+
+    /**
+     * Check that a record torn by a crash is dropped on load, and that the next record survives it.
+     */
+    public static void main(String[] args) throws IOException {
+        String id = "demo-" + UUID.randomUUID();
+        UserEntries entries = new UserEntries(id);
+        entries.createEntry(LocalDate.now(), "Written before the crash", "Positive", "Sunny");
+        entries.flush();
+
+        // a crash in the middle of an append, inside a quoted field
+        try (FileWriter log = new FileWriter(entries.logPath, true)) {
+            log.write("\"create\",\"torn\",\"2025-01-01\",\"half a line\nof conte");
+        }
+
+        entries = new UserEntries(id);
+        entries.createEntry(LocalDate.now(), "Written after the crash", "Neutral", "Rainy");
+        entries.flush();
+
+        entries = new UserEntries(id);
+        for (Entry entry : entries.listEntries()) System.out.println(entry.getContent());  // both entries
+
+        File[] files = new File(ENTRY_FOLDER).listFiles((folder, name) -> name.startsWith(id));
+        if (files != null) for (File file : files) file.delete();
     }
 }
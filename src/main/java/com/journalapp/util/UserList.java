@@ -5,16 +5,20 @@ import main.java.com.journalapp.model.User;
 import java.io.*;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashMap;
 
 /**
  * Manages user accounts and saves.
+ * <p>
+ * Accounts are kept in an in-memory email index, built from users.csv on first use.
+ * New accounts are appended to the file instead of rewriting it.
  */
 public class UserList {
     private static final String USER_LIST_FILE = "./data/users.csv";
     private static final String HEADER = "id,username,email,password\n";
 
+    private static HashMap<String, User> usersByEmail = null;
+
     private static void createUserListFile() {
         new File(USER_LIST_FILE).getParentFile().mkdirs();
         try (FileWriter file = new FileWriter(USER_LIST_FILE, false)) {
@@ -24,7 +28,7 @@ public class UserList {
         }
     }
 
-    public static void write(ArrayList<User> users) {
+    public static synchronized void write(ArrayList<User> users) {
         try (FileWriter writer = new FileWriter(USER_LIST_FILE, false)) {
             writer.write(HEADER);
             for (User user : users) {
@@ -33,6 +37,45 @@ public class UserList {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        usersByEmail = null;  // rebuilt on next lookup
+    }
+
+    /**
+     * Find the account registered with the given email.
+     * @param email email address of the account
+     * @return the user, or null if no account uses this email
+     */
+    public static synchronized User findByEmail(String email) {
+        return index().get(email);
+    }
+
+    /**
+     * Register a new account by appending it to the user list.
+     * @param user the new user
+     * @return true if added. false if an account with the same email already exists
+     */
+    public static synchronized boolean add(User user) {
+        if (index().containsKey(user.getEmail())) return false;
+
+        try (FileWriter writer = new FileWriter(USER_LIST_FILE, true)) {
+            writer.write(user + "\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        usersByEmail.put(user.getEmail(), user);
+        return true;
+    }
+
+    private static HashMap<String, User> index() {
+        if (usersByEmail == null) {
+            ArrayList<User> users = read();
+            usersByEmail = new HashMap<>(users.size() * 2);
+            for (User user : users) {
+                usersByEmail.putIfAbsent(user.getEmail(), user);  // first account wins, as with the old scan
+            }
+        }
+        return usersByEmail;
     }
 
     public static ArrayList<User> read() {
@@ -41,17 +84,15 @@ public class UserList {
         }
 
         ArrayList<User> users = new ArrayList<>();
-        Pattern pattern = Pattern.compile("\"([^\"]*)\",\"([^\"]*)\",\"([^\"]*)\",\"([^\"]*)\"");
-        try (BufferedReader reader = new BufferedReader(new FileReader(USER_LIST_FILE))) {
-            String line;
-            reader.readLine();  // discard header
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher = pattern.matcher(line);
-                matcher.matches();
-                User user = new User(matcher.group(1),
-                                     matcher.group(2),
-                                     matcher.group(3),
-                                     Cipher.decode(matcher.group(4)),
+        try (CsvReader reader = new CsvReader(USER_LIST_FILE)) {
+            String[] row;
+            reader.readRow();  // discard header
+            while ((row = reader.readRow()) != null) {
+                if (row.length != 4) continue;  // skip malformed rows
+                User user = new User(row[0],
+                                     row[1],
+                                     row[2],
+                                     Cipher.decode(row[3]),
                                      null);
                 users.add(user);
             }
@@ -1,42 +1,68 @@
 package main.java.com.journalapp.util;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Retrieves current weather.
+ * Lookups are cached per location and period of day, see {@link WeatherCache}.
  */
 public class Weather {
+    private static final String LOCATION = "WP Kuala Lumpur";
+    private static final String HOST = Config.getString(Config.WEATHER_HOST, "api.data.gov.my");
+    private static final WeatherCache cache = new WeatherCache();
+
+    static {
+        // an open data API, give up quickly and keep showing the cached weather
+        CallPolicy policy = new CallPolicy(HOST, Config.getDuration(Config.WEATHER_TIMEOUT, Duration.ofSeconds(8)), 2);
+        policy.setCircuitBreaker(3, Duration.ofMinutes(1));
+        policy.setRateLimit(1, 5);
+        API.setPolicy(URI.create("https://" + HOST).getHost(), policy);
+    }
+
+    /**
+     * Set how long a looked up weather is reused, one hour by default.
+     */
+    public static void setCacheTtl(Duration ttl) {
+        cache.setTtl(ttl);
+    }
+
+    /**
+     * Same as {@link #getCurrentWeather()}, but runs in the background.
+     * Use this from the JavaFX thread, the request can take seconds.
+     * @return future completed with the weather, or with an empty string if something goes wrong;
+     * already completed if the weather is cached
+     */
+    public static CompletableFuture<String> getCurrentWeatherAsync() {
+        return cache.get(LOCATION + "@" + Time.getPeriodOfDay(), Weather::fetchCurrentWeather);
+    }
+
     /**
      * Retrieve current weather in Kuala Lumpur from
      * api.data.gov.my based on current period of the day.
+     * Served from the cache when possible, and falls back to the last known weather if the request fails.
      * @return string representing weather,
      * either "Sunny", "Hazy", "Rainy", "Thunderstorms",
      * or empty string if something goes wrong
      */
     public static String getCurrentWeather() {
-        API api = new API();
-        String url = "https://api.data.gov.my/weather/forecast/?contains=WP%20Kuala%20Lumpur@location__location_name&sort=date&limit=1";
-
-        try {
-            // send GET request and retrieve weather json
-            String response = api.get(url);
-
-            // determine period of day and extract key
-            Pattern pattern = Pattern.compile("\"summary_forecast\":\"([^\"]+)\"");
-            Matcher matcher = pattern.matcher(response);
-
-            if (matcher.find()) {
-                String weather = matcher.group(1);
-                // translate response into simple English word
-                return translateWeather(weather);
-            }
+        return getCurrentWeatherAsync().join();
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    /**
+     * Request the current weather from api.data.gov.my, bypassing the cache.
+     */
+    private static CompletableFuture<String> fetchCurrentWeather() {
+        API api = new API();
+        String url = "https://" + HOST + "/weather/forecast/?contains=WP%20Kuala%20Lumpur@location__location_name&sort=date&limit=1";
 
-        return "";
+        // send GET request and read the forecast out of the weather json, the rest of it is never downloaded
+        return api.getAsync(url, body -> new JsonReader(body).find("[0].summary_forecast")).thenApply(weather -> {
+            if (weather == null) return "";
+            // translate response into simple English word
+            return translateWeather(weather);
+        });
     }
 
     /**
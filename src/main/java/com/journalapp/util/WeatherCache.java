@@ -0,0 +1,148 @@
+package main.java.com.journalapp.util;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Cache of weather lookups, keyed by location and period of day.
+ * <p>
+ * A value is reused until it is older than the TTL. Callers asking for the same key while it is being
+ * fetched share the one request. If a fetch fails, the last good value for the key is served instead,
+ * even if expired. Values are saved to the disk so a restart does not need a request.
+ */
+public class WeatherCache {
+    private static final String CACHE_FILE = "./data/weather-cache.csv";
+
+    private static class Cached {
+        final String value;
+        final long fetchedAt;  // epoch millis
+
+        Cached(String value, long fetchedAt) {
+            this.value = value;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private final String path;
+    private final Object fileLock = new Object();
+    private volatile Duration ttl = Duration.ofHours(1);
+
+    // both guarded by this
+    private final HashMap<String, Cached> values = new HashMap<>();
+    private final HashMap<String, CompletableFuture<String>> inFlight = new HashMap<>();
+
+    public WeatherCache() {
+        this(CACHE_FILE);
+    }
+
+    public WeatherCache(String path) {
+        this.path = path;
+        load();
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Return the value for a key, fetching it in the background if missing or expired.
+     * @param fetch starts the lookup, completing with the value, or with an empty string if the lookup failed
+     * @return future completed with the value, already completed if the cached value is fresh
+     */
+    public CompletableFuture<String> get(String key, Supplier<CompletableFuture<String>> fetch) {
+        CompletableFuture<String> future;
+        synchronized (this) {
+            Cached cached = values.get(key);
+            if (cached != null && System.currentTimeMillis() - cached.fetchedAt < ttl.toMillis()) {
+                return CompletableFuture.completedFuture(cached.value);
+            }
+
+            CompletableFuture<String> running = inFlight.get(key);
+            if (running != null) return running;
+
+            future = new CompletableFuture<>();
+            inFlight.put(key, future);
+        }
+
+        // outside the lock, the lookup may complete right away and save the file
+        CompletableFuture<String> lookup;
+        try {
+            lookup = fetch.get();
+        } catch (RuntimeException e) {
+            lookup = CompletableFuture.failedFuture(e);
+        }
+        lookup.whenComplete((value, error) -> {
+            if (error != null) error.printStackTrace();
+            future.complete(fetched(key, error == null ? value : ""));
+        });
+        return future;
+    }
+
+    /**
+     * Store a fetched value, or fall back to the last good one if the fetch failed.
+     */
+    private String fetched(String key, String value) {
+        synchronized (this) {
+            inFlight.remove(key);
+            if (value == null || value.isEmpty()) {
+                Cached last = values.get(key);
+                return last == null ? "" : last.value;
+            }
+            values.put(key, new Cached(value, System.currentTimeMillis()));
+        }
+        save();
+        return value;
+    }
+
+    private void load() {
+        if (!Files.exists(Paths.get(path))) return;
+        try (CsvReader reader = new CsvReader(path)) {
+            reader.readRow();  // skip header
+            String[] row;
+            while ((row = reader.readRow()) != null) {
+                if (row.length < 3) continue;
+                values.put(row[0], new Cached(row[1], Long.parseLong(row[2])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Rewrite the cache file. Only a handful of keys ever exist, so it is written whole.
+     */
+    private void save() {
+        Path tmp = Paths.get(path + ".tmp");
+        synchronized (fileLock) {  // copy under the same lock, so an older copy never overwrites a newer one
+            StringBuilder csv = new StringBuilder("key,value,fetchedAt\n");
+            synchronized (this) {
+                for (Map.Entry<String, Cached> entry : values.entrySet()) {
+                    csv.append('"').append(CsvReader.escape(entry.getKey())).append("\",\"")
+                            .append(CsvReader.escape(entry.getValue().value)).append("\",")
+                            .append(entry.getValue().fetchedAt).append('\n');
+                }
+            }
+            try {
+                tmp.toAbsolutePath().getParent().toFile().mkdirs();
+                try (Writer writer = new BufferedWriter(new FileWriter(tmp.toFile()))) {
+                    writer.write(csv.toString());
+                }
+                Files.move(tmp, Paths.get(path), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}